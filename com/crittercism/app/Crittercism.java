@@ -20,6 +20,7 @@ import crittercism.android.dk;
 import crittercism.android.dq;
 import crittercism.android.dt;
 import crittercism.android.dx;
+import crittercism.android.ef;
 import java.lang.reflect.Array;
 import java.net.URL;
 import org.json.JSONObject;
@@ -404,6 +405,11 @@ public class Crittercism {
             } else {
                 az A = az.m375A();
                 if (!A.f373f.m747b()) {
+                    ef efVar = A.f394K;
+                    if (efVar != null) {
+                        efVar.m788a(str, System.currentTimeMillis());
+                        return;
+                    }
                     Runnable c10037 = new C10037(A, new cf(str, C1053a.NORMAL));
                     if (!A.f384q.m708a(c10037)) {
                         new StringBuilder("SENDING ").append(str).append(" TO EXECUTOR");
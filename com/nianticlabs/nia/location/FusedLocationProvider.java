@@ -157,6 +157,16 @@ public class FusedLocationProvider implements Provider {
         this.providerListener = listener;
     }
 
+    public void setUpdateParameters(int updateTimeMs, float updateDistanceM, int priority) {
+        this.locationRequest.setInterval((long) updateTimeMs);
+        this.locationRequest.setFastestInterval((long) updateTimeMs);
+        this.locationRequest.setPriority(priority);
+        this.locationRequest.setSmallestDisplacement(updateDistanceM);
+        if (this.appState == AppState.RESUME && this.googleApiState == GoogleApiState.STARTED) {
+            startProvider();
+        }
+    }
+
     private void updateStatus(ServiceStatus status) {
         ProviderListener listener = this.providerListener;
         if (listener != null) {
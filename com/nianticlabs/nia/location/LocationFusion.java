@@ -0,0 +1,128 @@
+package com.nianticlabs.nia.location;
+
+import android.location.Location;
+import android.os.Handler;
+import android.os.SystemClock;
+
+/**
+ * Merges fixes from every location provider into at most one location per tick.
+ *
+ * Fixes are scored by their accuracy radius plus a penalty for age, and the lowest score seen
+ * during a tick wins. The winner is dropped if it lies within {@code minDistanceM} of the last
+ * emitted fix without being more accurate, unless nothing has been emitted for
+ * {@code maxSilenceMs}. All calls must come from the handler's thread.
+ */
+class LocationFusion {
+    private static final float AGE_PENALTY_M_PER_SEC = 2.0f;
+    private static final float DEGREES_TO_METERS = 111319.49f;
+    private static final float MIN_ACCURACY_IMPROVEMENT_M = 5.0f;
+    private static final long NANOS_PER_MILLI = 1000000;
+    private Location candidate;
+    private float candidateScore;
+    private final Handler handler;
+    private Location lastEmitted;
+    private long lastEmitMs;
+    private final Listener listener;
+    private long maxSilenceMs;
+    private float minDistanceM;
+    private final Runnable tick;
+    private long tickMs;
+    private boolean tickScheduled;
+
+    interface Listener {
+        void onFusedLocation(Location location);
+    }
+
+    private class Tick implements Runnable {
+        private Tick() {
+        }
+
+        public void run() {
+            LocationFusion.this.tickScheduled = false;
+            LocationFusion.this.emitCandidate(SystemClock.elapsedRealtime());
+        }
+    }
+
+    LocationFusion(Handler handler, Listener listener, long tickMs, float minDistanceM, long maxSilenceMs) {
+        this.handler = handler;
+        this.listener = listener;
+        this.tick = new Tick();
+        configure(tickMs, minDistanceM, maxSilenceMs);
+    }
+
+    void configure(long tickMs, float minDistanceM, long maxSilenceMs) {
+        this.tickMs = tickMs;
+        this.minDistanceM = minDistanceM;
+        this.maxSilenceMs = maxSilenceMs;
+    }
+
+    void offer(Location location) {
+        if (location == null) {
+            return;
+        }
+        long nowMs = SystemClock.elapsedRealtime();
+        float score = score(location, nowMs);
+        if (this.candidate == null || score <= this.candidateScore) {
+            this.candidate = location;
+            this.candidateScore = score;
+        }
+        if (nowMs - this.lastEmitMs >= this.tickMs) {
+            emitCandidate(nowMs);
+        } else if (!this.tickScheduled) {
+            this.tickScheduled = true;
+            this.handler.postDelayed(this.tick, (this.lastEmitMs + this.tickMs) - nowMs);
+        }
+    }
+
+    void reset() {
+        if (this.tickScheduled) {
+            this.tickScheduled = false;
+            this.handler.removeCallbacks(this.tick);
+        }
+        this.candidate = null;
+        this.lastEmitted = null;
+        this.lastEmitMs = 0;
+    }
+
+    private void emitCandidate(long nowMs) {
+        Location location = this.candidate;
+        this.candidate = null;
+        if (location == null || isRedundant(location, nowMs)) {
+            return;
+        }
+        this.lastEmitted = location;
+        this.lastEmitMs = nowMs;
+        this.listener.onFusedLocation(location);
+    }
+
+    private boolean isRedundant(Location location, long nowMs) {
+        Location last = this.lastEmitted;
+        if (last == null || nowMs - this.lastEmitMs >= this.maxSilenceMs) {
+            return false;
+        }
+        if (location.hasAccuracy() && (!last.hasAccuracy() || location.getAccuracy() + MIN_ACCURACY_IMPROVEMENT_M <= last.getAccuracy())) {
+            return false;
+        }
+        return distanceMeters(last, location) < this.minDistanceM;
+    }
+
+    private static float score(Location location, long nowMs) {
+        float accuracy = location.hasAccuracy() ? location.getAccuracy() : Float.MAX_VALUE / 2.0f;
+        long ageMs = nowMs - (location.getElapsedRealtimeNanos() / NANOS_PER_MILLI);
+        if (ageMs < 0) {
+            ageMs = 0;
+        }
+        return accuracy + ((((float) ageMs) / 1000.0f) * AGE_PENALTY_M_PER_SEC);
+    }
+
+    /**
+     * Equirectangular distance: accurate enough over the few meters this filter cares about and
+     * far cheaper than the iterative solution behind Location.distanceTo.
+     */
+    private static float distanceMeters(Location a, Location b) {
+        double latitude = a.getLatitude();
+        float dy = (float) (b.getLatitude() - latitude);
+        float dx = (float) ((b.getLongitude() - a.getLongitude()) * Math.cos(Math.toRadians(latitude)));
+        return ((float) Math.sqrt((double) ((dx * dx) + (dy * dy)))) * DEGREES_TO_METERS;
+    }
+}
@@ -27,8 +27,8 @@ public class LocationManagerProvider implements GpsProvider {
     private final String provider;
     private ProviderListener providerListener;
     private boolean running;
-    private final float updateDistance;
-    private final int updateTime;
+    private float updateDistance;
+    private int updateTime;
 
     /* renamed from: com.nianticlabs.nia.location.LocationManagerProvider.1 */
     class C07671 implements LocationListener {
@@ -139,6 +139,20 @@ public class LocationManagerProvider implements GpsProvider {
         this.providerListener = listener;
     }
 
+    public void setUpdateParameters(int updateTimeMs, float updateDistanceM, int priority) {
+        this.updateTime = updateTimeMs;
+        this.updateDistance = updateDistanceM;
+        if (this.running) {
+            try {
+                this.locationManager.requestLocationUpdates(this.provider, (long) this.updateTime, this.updateDistance, this.listener, ContextService.getServiceLooper());
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Could not update " + this.provider + " request", e);
+            } catch (SecurityException e2) {
+                Log.e(TAG, "Not allowed to access " + this.provider + " for updates", e2);
+            }
+        }
+    }
+
     private void updateStatus(ServiceStatus status) {
         ProviderListener listener = this.providerListener;
         if (listener != null) {
@@ -0,0 +1,145 @@
+package com.nianticlabs.nia.location;
+
+/**
+ * Picks provider update parameters from the user's detected activity and the battery state.
+ *
+ * The configured GPS and network parameters are used while the user is on foot. Standing
+ * still stretches the intervals and lets the fused provider drop to balanced power; being in a
+ * vehicle keeps high accuracy but relaxes the interval and displacement. A low, unplugged battery
+ * doubles every interval on top of that. Activities reported with low confidence, and the
+ * UNKNOWN/TILTING results, leave the schedule where it is.
+ */
+class LocationScheduler {
+    static final int ACTIVITY_IN_VEHICLE = 0;
+    static final int ACTIVITY_ON_BICYCLE = 1;
+    static final int ACTIVITY_ON_FOOT = 2;
+    static final int ACTIVITY_RUNNING = 8;
+    static final int ACTIVITY_STILL = 3;
+    static final int ACTIVITY_WALKING = 7;
+    private static final int LOW_BATTERY_PERCENT = 15;
+    private static final int MIN_CONFIDENCE = 60;
+    private static final int MODE_MOVING = 0;
+    private static final int MODE_STILL = 1;
+    private static final int MODE_VEHICLE = 2;
+    static final int PRIORITY_BALANCED_POWER_ACCURACY = 102;
+    static final int PRIORITY_HIGH_ACCURACY = 100;
+    private static final int STILL_GPS_UPDATE_TIME_MSEC = 10000;
+    private static final int STILL_NET_UPDATE_TIME_MSEC = 30000;
+    private static final float STILL_UPDATE_DISTANCE_M = 5.0f;
+    private static final int VEHICLE_GPS_UPDATE_TIME_MSEC = 3000;
+    private static final float VEHICLE_UPDATE_DISTANCE_M = 10.0f;
+    private float baseGpsDistanceM;
+    private int baseGpsTimeMs;
+    private float baseNetDistanceM;
+    private int baseNetTimeMs;
+    private float gpsDistanceM;
+    private int gpsTimeMs;
+    private boolean lowBattery;
+    private int mode;
+    private float netDistanceM;
+    private int netTimeMs;
+    private int priority;
+
+    LocationScheduler(int gpsTimeMs, float gpsDistanceM, int netTimeMs, float netDistanceM) {
+        this.mode = MODE_MOVING;
+        setBase(gpsTimeMs, gpsDistanceM, netTimeMs, netDistanceM);
+    }
+
+    void setBase(int gpsTimeMs, float gpsDistanceM, int netTimeMs, float netDistanceM) {
+        this.baseGpsTimeMs = gpsTimeMs;
+        this.baseGpsDistanceM = gpsDistanceM;
+        this.baseNetTimeMs = netTimeMs;
+        this.baseNetDistanceM = netDistanceM;
+        recompute();
+    }
+
+    /**
+     * Returns true when the schedule changed and providers need the new parameters.
+     */
+    boolean onActivity(int activityType, int confidence) {
+        if (confidence < MIN_CONFIDENCE) {
+            return false;
+        }
+        int newMode;
+        switch (activityType) {
+            case ACTIVITY_IN_VEHICLE /*0*/:
+                newMode = MODE_VEHICLE;
+                break;
+            case ACTIVITY_ON_BICYCLE /*1*/:
+            case ACTIVITY_ON_FOOT /*2*/:
+            case ACTIVITY_WALKING /*7*/:
+            case ACTIVITY_RUNNING /*8*/:
+                newMode = MODE_MOVING;
+                break;
+            case ACTIVITY_STILL /*3*/:
+                newMode = MODE_STILL;
+                break;
+            default:
+                return false;
+        }
+        if (newMode == this.mode) {
+            return false;
+        }
+        this.mode = newMode;
+        return recompute();
+    }
+
+    boolean onBattery(int percent, boolean charging) {
+        boolean low = !charging && percent >= 0 && percent <= LOW_BATTERY_PERCENT;
+        if (low == this.lowBattery) {
+            return false;
+        }
+        this.lowBattery = low;
+        return recompute();
+    }
+
+    int getGpsTimeMs() {
+        return this.gpsTimeMs;
+    }
+
+    float getGpsDistanceM() {
+        return this.gpsDistanceM;
+    }
+
+    int getNetTimeMs() {
+        return this.netTimeMs;
+    }
+
+    float getNetDistanceM() {
+        return this.netDistanceM;
+    }
+
+    int getPriority() {
+        return this.priority;
+    }
+
+    private boolean recompute() {
+        int gpsTime = this.baseGpsTimeMs;
+        float gpsDistance = this.baseGpsDistanceM;
+        int netTime = this.baseNetTimeMs;
+        float netDistance = this.baseNetDistanceM;
+        int newPriority = PRIORITY_HIGH_ACCURACY;
+        if (this.mode == MODE_STILL) {
+            gpsTime = Math.max(gpsTime, STILL_GPS_UPDATE_TIME_MSEC);
+            netTime = Math.max(netTime, STILL_NET_UPDATE_TIME_MSEC);
+            gpsDistance = Math.max(gpsDistance, STILL_UPDATE_DISTANCE_M);
+            netDistance = Math.max(netDistance, STILL_UPDATE_DISTANCE_M);
+            newPriority = PRIORITY_BALANCED_POWER_ACCURACY;
+        } else if (this.mode == MODE_VEHICLE) {
+            gpsTime = Math.max(gpsTime, VEHICLE_GPS_UPDATE_TIME_MSEC);
+            gpsDistance = Math.max(gpsDistance, VEHICLE_UPDATE_DISTANCE_M);
+            netDistance = Math.max(netDistance, VEHICLE_UPDATE_DISTANCE_M);
+        }
+        if (this.lowBattery) {
+            gpsTime *= 2;
+            netTime *= 2;
+        }
+        boolean changed = !(gpsTime == this.gpsTimeMs && gpsDistance == this.gpsDistanceM && netTime == this.netTimeMs && netDistance == this.netDistanceM && newPriority == this.priority);
+        this.gpsTimeMs = gpsTime;
+        this.gpsDistanceM = gpsDistance;
+        this.netTimeMs = netTime;
+        this.netDistanceM = netDistance;
+        this.priority = newPriority;
+        return changed;
+    }
+}
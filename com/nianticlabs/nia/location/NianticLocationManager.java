@@ -1,33 +1,47 @@
 package com.nianticlabs.nia.location;
 
+import android.content.BroadcastReceiver;
 import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
 import android.location.GpsSatellite;
 import android.location.Location;
 import com.nianticlabs.nia.contextservice.ContextService;
 import com.nianticlabs.nia.contextservice.ServiceStatus;
 import com.nianticlabs.nia.location.GpsProvider.GpsProviderListener;
 import com.nianticlabs.nia.location.Provider.ProviderListener;
+import com.nianticlabs.nia.useractivity.NianticActivityManager;
+import com.nianticlabs.nia.useractivity.NianticActivityManager.ActivityListener;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-public class NianticLocationManager extends ContextService {
+public class NianticLocationManager extends ContextService implements LocationFusion.Listener, ActivityListener {
     static final boolean ENABLE_VERBOSE_LOGS = false;
+    private static final int FUSED_PROVIDER_INDEX = 2;
     private static final String FUSED_PROVIDER_NAME = "fused";
+    private static final int FUSION_MAX_SILENCE_MSEC = 5000;
+    private static final float FUSION_MIN_DISTANCE_M = 1.0f;
+    private static final int FUSION_TICK_MSEC = 1000;
+    private static final int GPS_PROVIDER_INDEX = 0;
     private static final float GPS_UPDATE_DISTANCE_M = 0.0f;
     private static final int GPS_UPDATE_TIME_MSEC = 1000;
     private static final long INITIALIZATION_WAIT_TIME_MS = 2000;
     private static final float NET_UPDATE_DISTANCE_M = 0.0f;
+    private static final int NETWORK_PROVIDER_INDEX = 1;
     private static final int NET_UPDATE_TIME_MSEC = 5000;
     private static final String TAG = "NianticLocationManager";
+    private final BroadcastReceiver batteryReceiver;
+    private boolean batteryReceiverRegistered;
+    private final LocationFusion fusion;
     private float gpsUpdateDistanceM;
     private int gpsUpdateTimeMs;
     private float netUpdateDistanceM;
     private int netUpdateTimeMs;
+    private Provider networkProvider;
     private final List<Provider> providers;
+    private final LocationScheduler scheduler;
     private boolean started;
-    private final Map<String, ServiceStatus> statusMap;
+    private final int[] statuses;
 
     /* renamed from: com.nianticlabs.nia.location.NianticLocationManager.1 */
     class C07691 implements GpsProviderListener {
@@ -42,12 +56,12 @@ public class NianticLocationManager extends ContextService {
         }
 
         public void onProviderStatus(ServiceStatus status) {
-            NianticLocationManager.this.statusMap.put(this.val$name, status);
-            NianticLocationManager.this.locationUpdate(null, NianticLocationManager.this.statusArray());
+            NianticLocationManager.this.setStatus(this.val$name, status);
+            NianticLocationManager.this.locationUpdate(null, NianticLocationManager.this.statuses);
         }
 
         public void onProviderLocation(Location location) {
-            NianticLocationManager.this.locationUpdate(location, NianticLocationManager.this.statusArray());
+            NianticLocationManager.this.fusion.offer(location);
         }
     }
 
@@ -60,11 +74,11 @@ public class NianticLocationManager extends ContextService {
         }
 
         public void onProviderStatus(ServiceStatus status) {
-            NianticLocationManager.this.statusMap.put(this.val$name, status);
+            NianticLocationManager.this.setStatus(this.val$name, status);
         }
 
         public void onProviderLocation(Location location) {
-            NianticLocationManager.this.locationUpdate(location, NianticLocationManager.this.statusArray());
+            NianticLocationManager.this.fusion.offer(location);
         }
     }
 
@@ -88,33 +102,91 @@ public class NianticLocationManager extends ContextService {
             NianticLocationManager.this.gpsUpdateDistanceM = (float) this.val$update_distance;
             NianticLocationManager.this.netUpdateTimeMs = this.val$net_update_time_ms;
             NianticLocationManager.this.netUpdateDistanceM = (float) this.val$update_distance;
+            NianticLocationManager.this.scheduler.setBase(this.val$gps_update_time_ms, (float) this.val$update_distance, this.val$net_update_time_ms, (float) this.val$update_distance);
             NianticLocationManager.this.doStart();
         }
     }
 
+    private class BatteryReceiver extends BroadcastReceiver {
+        private BatteryReceiver() {
+        }
+
+        public void onReceive(Context context, Intent intent) {
+            int level = intent.getIntExtra("level", -1);
+            int scale = intent.getIntExtra("scale", -1);
+            boolean charging = intent.getIntExtra("plugged", 0) != 0;
+            if (level >= 0 && scale > 0 && NianticLocationManager.this.scheduler.onBattery((level * 100) / scale, charging)) {
+                NianticLocationManager.this.applySchedule();
+            }
+        }
+    }
+
+    private class ConfigureFusion implements Runnable {
+        private final int maxSilenceMs;
+        private final float minDistanceM;
+        private final int tickMs;
+
+        private ConfigureFusion(int tickMs, float minDistanceM, int maxSilenceMs) {
+            this.tickMs = tickMs;
+            this.minDistanceM = minDistanceM;
+            this.maxSilenceMs = maxSilenceMs;
+        }
+
+        public void run() {
+            NianticLocationManager.this.fusion.configure((long) this.tickMs, this.minDistanceM, (long) this.maxSilenceMs);
+        }
+    }
+
     private native void nativeGpsStatusUpdate(int i, GpsSatellite[] gpsSatelliteArr);
 
     private native void nativeLocationUpdate(Location location, int[] iArr, Context context);
 
     public NianticLocationManager(Context context, long nativeClassPointer) {
         super(context, nativeClassPointer);
-        this.statusMap = new HashMap();
+        this.statuses = new int[3];
+        this.fusion = new LocationFusion(ContextService.getServiceHandler(), this, FUSION_TICK_MSEC, FUSION_MIN_DISTANCE_M, FUSION_MAX_SILENCE_MSEC);
         this.gpsUpdateTimeMs = GPS_UPDATE_TIME_MSEC;
         this.gpsUpdateDistanceM = NET_UPDATE_DISTANCE_M;
         this.netUpdateTimeMs = NET_UPDATE_TIME_MSEC;
         this.netUpdateDistanceM = NET_UPDATE_DISTANCE_M;
         this.started = ENABLE_VERBOSE_LOGS;
-        this.statusMap.put("gps", ServiceStatus.UNDEFINED);
-        this.statusMap.put("network", ServiceStatus.UNDEFINED);
-        this.statusMap.put(FUSED_PROVIDER_NAME, ServiceStatus.UNDEFINED);
+        setStatus("gps", ServiceStatus.UNDEFINED);
+        setStatus("network", ServiceStatus.UNDEFINED);
+        setStatus(FUSED_PROVIDER_NAME, ServiceStatus.UNDEFINED);
         this.providers = new ArrayList(3);
+        this.scheduler = new LocationScheduler(this.gpsUpdateTimeMs, this.gpsUpdateDistanceM, this.netUpdateTimeMs, this.netUpdateDistanceM);
+        this.batteryReceiver = new BatteryReceiver();
+        NianticActivityManager.setActivityListener(this);
     }
 
     private void createProviders() {
         if (this.providers.size() != 3) {
             addProvider(FUSED_PROVIDER_NAME, new FusedLocationProvider(this.context, this.gpsUpdateTimeMs, this.gpsUpdateDistanceM));
             addProvider("gps", new LocationManagerProvider(this.context, "gps", this.gpsUpdateTimeMs, this.gpsUpdateDistanceM));
-            addProvider("network", new LocationManagerProvider(this.context, "network", this.netUpdateTimeMs, this.netUpdateDistanceM));
+            this.networkProvider = new LocationManagerProvider(this.context, "network", this.netUpdateTimeMs, this.netUpdateDistanceM);
+            addProvider("network", this.networkProvider);
+            applySchedule();
+        }
+    }
+
+    /**
+     * Pushes the scheduler's current parameters to every provider. Running providers re-issue
+     * their request with the same listener, which replaces the old one without a restart.
+     */
+    private void applySchedule() {
+        LocationScheduler schedule = this.scheduler;
+        for (Provider provider : this.providers) {
+            if (provider == this.networkProvider) {
+                provider.setUpdateParameters(schedule.getNetTimeMs(), schedule.getNetDistanceM(), schedule.getPriority());
+            } else {
+                provider.setUpdateParameters(schedule.getGpsTimeMs(), schedule.getGpsDistanceM(), schedule.getPriority());
+            }
+        }
+    }
+
+    public void onActivityDetected(int activityType, int confidence) {
+        if (this.scheduler.onActivity(activityType, confidence)) {
+            applySchedule();
         }
     }
 
@@ -127,8 +199,18 @@ public class NianticLocationManager extends ContextService {
         }
     }
 
-    private int[] statusArray() {
-        return new int[]{((ServiceStatus) this.statusMap.get("gps")).ordinal(), ((ServiceStatus) this.statusMap.get("network")).ordinal(), ((ServiceStatus) this.statusMap.get(FUSED_PROVIDER_NAME)).ordinal()};
+    private void setStatus(String name, ServiceStatus status) {
+        if ("gps".equals(name)) {
+            this.statuses[GPS_PROVIDER_INDEX] = status.ordinal();
+        } else if ("network".equals(name)) {
+            this.statuses[NETWORK_PROVIDER_INDEX] = status.ordinal();
+        } else if (FUSED_PROVIDER_NAME.equals(name)) {
+            this.statuses[FUSED_PROVIDER_INDEX] = status.ordinal();
+        }
+    }
+
+    public void onFusedLocation(Location location) {
+        locationUpdate(location, this.statuses);
     }
 
     public void onStart() {
@@ -137,7 +219,7 @@ public class NianticLocationManager extends ContextService {
     private void doStart() {
         if (!this.started) {
             createProviders();
-            locationUpdate(null, statusArray());
+            locationUpdate(null, this.statuses);
             for (Provider provider : this.providers) {
                 provider.onStart();
             }
@@ -149,6 +231,8 @@ public class NianticLocationManager extends ContextService {
         for (Provider provider : this.providers) {
             provider.onStop();
         }
+        this.fusion.reset();
+        unregisterBatteryReceiver();
         this.started = ENABLE_VERBOSE_LOGS;
     }
 
@@ -156,12 +240,18 @@ public class NianticLocationManager extends ContextService {
         for (Provider provider : this.providers) {
             provider.onPause();
         }
+        this.fusion.reset();
+        unregisterBatteryReceiver();
     }
 
     public void onResume() {
         if (!this.started) {
             doStart();
         }
+        if (!this.batteryReceiverRegistered) {
+            this.context.registerReceiver(this.batteryReceiver, new IntentFilter("android.intent.action.BATTERY_CHANGED"), null, ContextService.getServiceHandler());
+            this.batteryReceiverRegistered = true;
+        }
         for (Provider provider : this.providers) {
             provider.onResume();
         }
@@ -171,6 +261,22 @@ public class NianticLocationManager extends ContextService {
         ContextService.runOnServiceHandler(new C07713(gps_update_time_ms, update_distance, net_update_time_ms));
     }
 
+    private void unregisterBatteryReceiver() {
+        if (this.batteryReceiverRegistered) {
+            this.context.unregisterReceiver(this.batteryReceiver);
+            this.batteryReceiverRegistered = false;
+        }
+    }
+
+    /**
+     * Tunes the stage that merges provider fixes: at most one location per tickMs, and fixes
+     * closer than minDistanceM to the last one are skipped unless they are more accurate or
+     * nothing has been sent for maxSilenceMs.
+     */
+    public void configureLocationFusion(int tickMs, double minDistanceM, int maxSilenceMs) {
+        ContextService.runOnServiceHandler(new ConfigureFusion(tickMs, (float) minDistanceM, maxSilenceMs));
+    }
+
     private void locationUpdate(Location location, int[] status) {
         synchronized (this.callbackLock) {
             nativeLocationUpdate(location, status, this.context);
@@ -20,4 +20,6 @@ public interface Provider {
     void onStop();
 
     void setListener(ProviderListener providerListener);
+
+    void setUpdateParameters(int updateTimeMs, float updateDistanceM, int priority);
 }
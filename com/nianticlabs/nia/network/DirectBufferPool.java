@@ -0,0 +1,88 @@
+package com.nianticlabs.nia.network;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Size-classed pool of direct buffers shared by every NiaNet pool thread.
+ *
+ * Classes are powers of two from {@code minCapacity} up to {@code maxCapacity}. Each class keeps
+ * at most {@code maxPerClass} idle buffers; anything beyond that, and any request larger than the
+ * biggest class, is allocated on demand and left to the collector when released.
+ */
+final class DirectBufferPool {
+    private final ConcurrentLinkedQueue<ByteBuffer>[] classes;
+    private final AtomicInteger[] idleCounts;
+    private final int maxCapacity;
+    private final int maxPerClass;
+    private final int minCapacity;
+
+    DirectBufferPool(int minCapacity, int maxCapacity, int maxPerClass) {
+        this.minCapacity = minCapacity;
+        this.maxCapacity = maxCapacity;
+        this.maxPerClass = maxPerClass;
+        int count = (Integer.numberOfTrailingZeros(maxCapacity) - Integer.numberOfTrailingZeros(minCapacity)) + 1;
+        this.classes = new ConcurrentLinkedQueue[count];
+        this.idleCounts = new AtomicInteger[count];
+        for (int i = 0; i < count; i++) {
+            this.classes[i] = new ConcurrentLinkedQueue<ByteBuffer>();
+            this.idleCounts[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * Returns a cleared direct buffer with at least {@code capacity} bytes of room.
+     */
+    ByteBuffer acquire(int capacity) {
+        int index = classIndex(capacity);
+        if (index < 0) {
+            return ByteBuffer.allocateDirect(capacity);
+        }
+        ByteBuffer buffer = this.classes[index].poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(this.minCapacity << index);
+        }
+        this.idleCounts[index].decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer with room for at least {@code capacity} bytes that holds the bytes
+     * {@code buffer} has written so far, releasing {@code buffer} back to the pool.
+     */
+    ByteBuffer grow(ByteBuffer buffer, int capacity) {
+        ByteBuffer bigger = acquire(capacity);
+        buffer.flip();
+        bigger.put(buffer);
+        release(buffer);
+        return bigger;
+    }
+
+    void release(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return;
+        }
+        int capacity = buffer.capacity();
+        int index = classIndex(capacity);
+        if (index < 0 || (this.minCapacity << index) != capacity) {
+            return;
+        }
+        if (this.idleCounts[index].incrementAndGet() <= this.maxPerClass) {
+            this.classes[index].offer(buffer);
+        } else {
+            this.idleCounts[index].decrementAndGet();
+        }
+    }
+
+    private int classIndex(int capacity) {
+        if (capacity > this.maxCapacity) {
+            return -1;
+        }
+        if (capacity <= this.minCapacity) {
+            return 0;
+        }
+        return (32 - Integer.numberOfLeadingZeros(capacity - 1)) - Integer.numberOfTrailingZeros(this.minCapacity);
+    }
+}
@@ -7,20 +7,36 @@ import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Locale;
 import java.util.Set;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
+import java.util.TimeZone;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
 import org.apache.commons.io.IOUtils;
 
 public class NiaNet {
+    private static final int BUFFER_POOL_MAX_CAPACITY = 16777216;
+    private static final int BUFFER_POOL_MAX_PER_CLASS = 4;
+    private static final String CACHE_CONTROL = "Cache-Control";
     private static final int CHUNK_SIZE = 32768;
+    private static final String CONTENT_ENCODING = "Content-Encoding";
+    private static final String ETAG = "ETag";
+    private static final String GZIP = "gzip";
     private static final int HTTP_BAD_REQUEST = 400;
+    private static final int HTTP_NOT_MODIFIED = 304;
     private static final int HTTP_OK = 200;
+    private static final int HTTP_UNSUPPORTED_MEDIA_TYPE = 415;
     private static final String IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String LAST_MODIFIED = "Last-Modified";
+    private static final int MAX_IN_FLIGHT_PER_HOST = 4;
+    private static final int MAX_POOL_THREAD_NUM = 12;
     private static final int METHOD_DELETE = 4;
     private static final int METHOD_GET = 0;
     private static final int METHOD_HEAD = 1;
@@ -28,87 +44,55 @@ public class NiaNet {
     private static final int METHOD_POST = 2;
     private static final int METHOD_PUT = 3;
     private static final int METHOD_TRACE = 6;
+    private static final int MIN_GZIP_BODY_SIZE = 1024;
     private static final int NETWORK_TIMEOUT_MS = 15000;
     private static final int POOL_THREAD_NUM = 6;
     private static final String TAG = "NiaNet";
-    private static final ThreadPoolExecutor executor;
-    private static Set<Integer> pendingRequestIds;
-    static ThreadLocal<ByteBuffer> readBuffer;
-    private static final ThreadLocal<byte[]> threadChunk;
+    private static final int UPLOAD_GZIP = 1;
+    private static final int UPLOAD_IDENTITY = 0;
+    private static final DirectBufferPool bufferPool;
+    private static final NiaRequestEngine engine;
+    private static volatile boolean compressUploads;
+    private static final ThreadLocal<SimpleDateFormat> httpDateFormat;
+    private static final Set<String> identityUploadHosts;
+    private static volatile NiaResponseCache responseCache;
 
-    /* renamed from: com.nianticlabs.nia.network.NiaNet.1 */
-    static class C07721 extends ThreadLocal<byte[]> {
-        C07721() {
+    private static final class HttpDateFormat extends ThreadLocal<SimpleDateFormat> {
+        private HttpDateFormat() {
         }
 
-        protected byte[] initialValue() {
-            return new byte[NiaNet.CHUNK_SIZE];
-        }
-    }
-
-    /* renamed from: com.nianticlabs.nia.network.NiaNet.2 */
-    static class C07732 extends ThreadLocal<ByteBuffer> {
-        C07732() {
-        }
-
-        protected ByteBuffer initialValue() {
-            return ByteBuffer.allocateDirect(NiaNet.CHUNK_SIZE);
-        }
-    }
-
-    /* renamed from: com.nianticlabs.nia.network.NiaNet.3 */
-    static class C07743 implements Runnable {
-        final /* synthetic */ ByteBuffer val$body;
-        final /* synthetic */ int val$bodyOffset;
-        final /* synthetic */ int val$bodySize;
-        final /* synthetic */ String val$headers;
-        final /* synthetic */ int val$method;
-        final /* synthetic */ long val$object;
-        final /* synthetic */ int val$request_id;
-        final /* synthetic */ String val$url;
-
-        C07743(long j, int i, String str, int i2, String str2, ByteBuffer byteBuffer, int i3, int i4) {
-            this.val$object = j;
-            this.val$request_id = i;
-            this.val$url = str;
-            this.val$method = i2;
-            this.val$headers = str2;
-            this.val$body = byteBuffer;
-            this.val$bodyOffset = i3;
-            this.val$bodySize = i4;
-        }
-
-        public void run() {
-            NiaNet.doSyncRequest(this.val$object, this.val$request_id, this.val$url, this.val$method, this.val$headers, this.val$body, this.val$bodyOffset, this.val$bodySize);
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+            format.setTimeZone(TimeZone.getTimeZone("GMT"));
+            return format;
         }
     }
 
     private static native void nativeCallback(long j, int i, String str, ByteBuffer byteBuffer, int i2, int i3);
 
     static {
-        executor = new ThreadPoolExecutor(POOL_THREAD_NUM, 12, 5, TimeUnit.SECONDS, new LinkedBlockingQueue());
-        pendingRequestIds = new HashSet();
-        threadChunk = new C07721();
-        readBuffer = new C07732();
+        bufferPool = new DirectBufferPool(CHUNK_SIZE, BUFFER_POOL_MAX_CAPACITY, BUFFER_POOL_MAX_PER_CLASS);
+        engine = new NiaRequestEngine(POOL_THREAD_NUM, MAX_POOL_THREAD_NUM, MAX_IN_FLIGHT_PER_HOST);
+        identityUploadHosts = Collections.newSetFromMap(new ConcurrentHashMap());
+        httpDateFormat = new HttpDateFormat();
     }
 
     public static void request(long object, int request_id, String url, int method, String headers, ByteBuffer body, int bodyOffset, int bodySize) {
-        synchronized (pendingRequestIds) {
-            pendingRequestIds.add(Integer.valueOf(request_id));
-        }
-        executor.execute(new C07743(object, request_id, url, method, headers, body, bodyOffset, bodySize));
+        engine.submit(object, request_id, url, method, headers, body, bodyOffset, bodySize);
     }
 
     public static void cancel(int request_id) {
-        synchronized (pendingRequestIds) {
-            pendingRequestIds.remove(Integer.valueOf(request_id));
-        }
+        engine.cancel(request_id);
     }
 
     private NiaNet() {
     }
 
-    private static int readDataSteam(HttpURLConnection conn) throws IOException {
+    /**
+     * Reads the response body into a pooled buffer sized from Content-Length. A full buffer is only
+     * grown once another byte actually arrives, so an exact Content-Length never reallocates.
+     */
+    private static ByteBuffer readDataSteam(HttpURLConnection conn) throws IOException {
         InputStream is;
         if (conn.getResponseCode() == HTTP_OK) {
             is = conn.getInputStream();
@@ -116,110 +100,182 @@ public class NiaNet {
             is = conn.getErrorStream();
         }
         if (is == null) {
-            return METHOD_GET;
+            return null;
         }
-        ByteBuffer buffer = (ByteBuffer) readBuffer.get();
+        int contentLength = conn.getContentLength();
+        ByteBuffer buffer = bufferPool.acquire(contentLength > 0 ? contentLength : CHUNK_SIZE);
+        ReadableByteChannel channel = Channels.newChannel(is);
         try {
-            int length;
-            byte[] chunk = buffer.array();
-            int bufferOffset = buffer.arrayOffset();
-            int offset = bufferOffset;
-            boolean keepReading = true;
             while (true) {
-                int available = is.available();
-                length = chunk.length;
-                if (r0 <= available + offset) {
-                    ByteBuffer newBuffer = ByteBuffer.allocateDirect(((available + offset) - bufferOffset) * METHOD_POST);
-                    int bytesToCopy = offset - bufferOffset;
-                    int newBufferOffset = newBuffer.arrayOffset();
-                    if (bytesToCopy > 0) {
-                        System.arraycopy(chunk, bufferOffset, newBuffer.array(), newBufferOffset, bytesToCopy);
+                if (!buffer.hasRemaining()) {
+                    int next = is.read();
+                    if (next < 0) {
+                        return buffer;
                     }
-                    bufferOffset = newBufferOffset;
-                    offset = bytesToCopy + newBufferOffset;
-                    chunk = newBuffer.array();
-                    buffer = newBuffer;
-                    readBuffer.set(buffer);
-                }
-                int i = offset;
-                int bytesRead = is.read(chunk, i, chunk.length - offset);
-                if (bytesRead >= 0) {
-                    offset += bytesRead;
-                    continue;
-                } else {
-                    keepReading = false;
-                    continue;
+                    buffer = bufferPool.grow(buffer, buffer.capacity() * 2);
+                    buffer.put((byte) next);
                 }
-                if (!keepReading) {
-                    break;
+                if (channel.read(buffer) < 0) {
+                    return buffer;
                 }
             }
-            length = offset - bufferOffset;
-            return length;
+        } catch (IOException e) {
+            bufferPool.release(buffer);
+            throw e;
         } finally {
-            is.close();
+            channel.close();
         }
     }
 
-    private static void doSyncRequest(long object, int request_id, String url, int method, String headers, ByteBuffer body, int bodyOffset, int bodyCount) {
-        synchronized (pendingRequestIds) {
-            if (!pendingRequestIds.contains(Integer.valueOf(request_id))) {
-                return;
+    static void doSyncRequest(NiaRequestEngine.Request request) {
+        ByteBuffer response = null;
+        HttpURLConnection conn = null;
+        int responseCode = HTTP_BAD_REQUEST;
+        String responseHeaders = null;
+        NiaResponseCache cache = responseCache;
+        String cacheKey = null;
+        NiaResponseCache.Entry cached = null;
+        if (cache != null && request.method == METHOD_GET && findHeader(request.headers, IF_MODIFIED_SINCE) == null && findHeader(request.headers, IF_NONE_MATCH) == null) {
+            cacheKey = cache.keyFor(request.url, request.headers);
+            cached = cache.get(cacheKey);
+        }
+        try {
+            int encoding = uploadEncoding(request);
+            conn = send(request, encoding, cached);
+            responseCode = conn.getResponseCode();
+            if (responseCode == HTTP_UNSUPPORTED_MEDIA_TYPE && encoding == UPLOAD_GZIP) {
+                Log.w(TAG, "Host " + request.host + " rejected a gzip body, sending uncompressed.");
+                identityUploadHosts.add(request.host);
+                conn.disconnect();
+                encoding = UPLOAD_IDENTITY;
+                conn = send(request, encoding, cached);
+                responseCode = conn.getResponseCode();
             }
-            int responseSize;
-            pendingRequestIds.remove(Integer.valueOf(request_id));
-            HttpURLConnection conn = null;
-            int responseCode = HTTP_BAD_REQUEST;
-            String responseHeaders = null;
-            OutputStream os;
-            try {
-                conn = (HttpURLConnection) new URL(url).openConnection();
-                setHeaders(conn, headers);
-                conn.setConnectTimeout(NETWORK_TIMEOUT_MS);
-                conn.setRequestProperty("Connection", "Keep-Alive");
-                HttpURLConnection.setFollowRedirects(false);
-                conn.setRequestMethod(getMethodString(method));
-                if (body != null && bodyCount > 0) {
-                    conn.setDoOutput(true);
-                    os = conn.getOutputStream();
-                    if (body.hasArray()) {
-                        os.write(body.array(), body.arrayOffset() + bodyOffset, bodyCount);
-                    } else {
-                        byte[] chunk = (byte[]) threadChunk.get();
-                        while (body.hasRemaining()) {
-                            int bytesToRead = Math.min(body.remaining(), chunk.length);
-                            body.get(chunk, METHOD_GET, bytesToRead);
-                            os.write(chunk, METHOD_GET, bytesToRead);
-                        }
-                    }
-                    os.close();
+            if (responseCode == HTTP_NOT_MODIFIED && cached != null) {
+                bufferPool.release(readDataSteam(conn));
+                response = cache.readBody(cached, bufferPool);
+                if (response != null) {
+                    deliver(request.object, HTTP_OK, cached.headers, response);
+                    return;
                 }
+                conn = send(request, encoding, null);
                 responseCode = conn.getResponseCode();
-                responseHeaders = joinHeaders(conn);
-                responseSize = readDataSteam(conn);
-                if (conn != null) {
-                    conn.disconnect();
-                }
-            } catch (IOException e) {
-                try {
-                    Log.e(TAG, "Network op failed: " + e.getMessage());
-                    responseSize = METHOD_GET;
-                    if (conn != null) {
-                        conn.disconnect();
-                    }
-                } catch (Throwable th) {
-                    if (conn != null) {
-                        conn.disconnect();
-                    }
-                }
-            } catch (Throwable th2) {
-                os.close();
             }
-            if (responseSize > 0) {
-                nativeCallback(object, responseCode, responseHeaders, (ByteBuffer) readBuffer.get(), METHOD_GET, responseSize);
+            responseHeaders = joinHeaders(conn);
+            response = readDataSteam(conn);
+            if (cacheKey != null && responseCode == HTTP_OK && response != null) {
+                cache.put(cacheKey, conn.getHeaderField(ETAG), conn.getHeaderField(LAST_MODIFIED), conn.getHeaderField(CACHE_CONTROL), responseHeaders, response);
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Network op failed: " + e.getMessage());
+            if (conn != null) {
+                conn.disconnect();
+            }
+        }
+        deliver(request.object, responseCode, responseHeaders, response);
+    }
+
+    private static HttpURLConnection send(NiaRequestEngine.Request request, int encoding, NiaResponseCache.Entry cached) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) new URL(request.url).openConnection();
+        setHeaders(conn, request.headers);
+        if (cached != null) {
+            if (cached.etag != null) {
+                conn.setRequestProperty(IF_NONE_MATCH, cached.etag);
+            }
+            if (cached.lastModified != null) {
+                conn.setRequestProperty(IF_MODIFIED_SINCE, cached.lastModified);
+            }
+        }
+        conn.setConnectTimeout(NETWORK_TIMEOUT_MS);
+        conn.setRequestProperty("Connection", "Keep-Alive");
+        HttpURLConnection.setFollowRedirects(false);
+        conn.setRequestMethod(getMethodString(request.method));
+        if (request.body != null && request.bodySize > 0) {
+            writeBody(conn, request, encoding);
+        }
+        return conn;
+    }
+
+    /**
+     * Streams the request body without buffering it in the connection. Identity bodies use
+     * fixed-length streaming from bodySize; gzip bodies are compressed on the fly and sent chunked.
+     * Direct buffers are written through a channel rather than copied into a heap array first.
+     */
+    private static void writeBody(HttpURLConnection conn, NiaRequestEngine.Request request, int encoding) throws IOException {
+        ByteBuffer body = request.body.duplicate();
+        body.limit(request.bodyOffset + request.bodySize);
+        body.position(request.bodyOffset);
+        conn.setDoOutput(true);
+        if (encoding == UPLOAD_IDENTITY) {
+            conn.setFixedLengthStreamingMode(request.bodySize);
+        } else {
+            conn.setRequestProperty(CONTENT_ENCODING, GZIP);
+            conn.setChunkedStreamingMode(CHUNK_SIZE);
+        }
+        OutputStream os = conn.getOutputStream();
+        if (encoding != UPLOAD_IDENTITY) {
+            os = new GZIPOutputStream(os, CHUNK_SIZE);
+        }
+        try {
+            if (body.hasArray()) {
+                os.write(body.array(), body.arrayOffset() + body.position(), body.remaining());
             } else {
+                WritableByteChannel channel = Channels.newChannel(os);
+                while (body.hasRemaining()) {
+                    channel.write(body);
+                }
+            }
+        } finally {
+            os.close();
+        }
+    }
+
+    /**
+     * When upload compression is on, large bodies are gzipped unless native code already set a
+     * Content-Encoding of its own, or the host has answered a gzip body with 415 before, in which
+     * case it gets identity bodies from then on.
+     */
+    private static int uploadEncoding(NiaRequestEngine.Request request) {
+        if (request.body == null || request.bodySize <= 0) {
+            return UPLOAD_IDENTITY;
+        }
+        if (!compressUploads || request.bodySize < MIN_GZIP_BODY_SIZE || identityUploadHosts.contains(request.host) || findHeader(request.headers, CONTENT_ENCODING) != null) {
+            return UPLOAD_IDENTITY;
+        }
+        return UPLOAD_GZIP;
+    }
+
+    public static void setUploadCompression(boolean enabled) {
+        compressUploads = enabled;
+    }
+
+    /**
+     * Installs the cache used to revalidate GET responses, or turns caching off when null.
+     * Requests that already carry If-Modified-Since or If-None-Match bypass the cache so native
+     * code still sees its own 304s. The cache's index is loaded in the background; requests made
+     * before it is ready go to the network as usual.
+     */
+    public static void setResponseCache(NiaResponseCache cache) {
+        if (cache != null) {
+            cache.loadAsync();
+        }
+        responseCache = cache;
+    }
+
+    /**
+     * Hands the pooled response buffer to native code as-is. Native code copies what it needs
+     * before nativeCallback returns, so the return is its acknowledgement and the buffer goes
+     * straight back to the pool.
+     */
+    private static void deliver(long object, int responseCode, String responseHeaders, ByteBuffer response) {
+        try {
+            if (response == null || response.position() == 0) {
                 nativeCallback(object, responseCode, responseHeaders, null, METHOD_GET, METHOD_GET);
+            } else {
+                nativeCallback(object, responseCode, responseHeaders, response, METHOD_GET, response.position());
             }
+        } finally {
+            bufferPool.release(response);
         }
     }
 
@@ -269,6 +325,25 @@ public class NiaNet {
         }
     }
 
+    static String findHeader(String headers, String name) {
+        if (headers == null || headers.isEmpty()) {
+            return null;
+        }
+        int start = 0;
+        do {
+            int newLine = headers.indexOf(10, start);
+            if (newLine < 0) {
+                newLine = headers.length();
+            }
+            int colon = headers.indexOf(58, start);
+            if (colon >= 0 && colon < newLine && name.equalsIgnoreCase(headers.substring(start, colon).trim())) {
+                return headers.substring(colon + 1, newLine).trim();
+            }
+            start = newLine + 1;
+        } while (start < headers.length());
+        return null;
+    }
+
     private static String joinHeaders(HttpURLConnection conn) {
         StringBuilder headers = new StringBuilder();
         int i = METHOD_GET;
@@ -294,6 +369,6 @@ public class NiaNet {
     }
 
     private static long parseHttpDateTime(String s) throws ParseException {
-        return new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz").parse(s).getTime();
+        return httpDateFormat.get().parse(s).getTime();
     }
 }
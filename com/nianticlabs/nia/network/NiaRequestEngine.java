@@ -0,0 +1,161 @@
+package com.nianticlabs.nia.network;
+
+import android.util.Log;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedules NiaNet requests so that many of them can be on the wire at once.
+ *
+ * Every request carries its own state, so cancelling only flips that state and never waits
+ * on I/O. Requests are grouped into one lane per host; each lane caps how many of its
+ * requests are in flight and hands the rest to the pool as earlier ones finish, which keeps
+ * the platform keep-alive pool warm without opening a socket per request.
+ */
+final class NiaRequestEngine {
+    private static final String TAG = "NiaNet";
+    static final int STATE_QUEUED = 0;
+    static final int STATE_RUNNING = 1;
+    static final int STATE_CANCELLED = 2;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<String, HostLane> lanes;
+    private final int maxInFlightPerHost;
+    private final Map<Integer, Request> pending;
+
+    static final class Request implements Runnable {
+        final ByteBuffer body;
+        final int bodyOffset;
+        final int bodySize;
+        private final NiaRequestEngine engine;
+        final String headers;
+        final String host;
+        final int method;
+        final long object;
+        final int requestId;
+        long startTimeNanos;
+        final AtomicInteger state;
+        final long submitTimeNanos;
+        final String url;
+
+        Request(NiaRequestEngine engine, long object, int requestId, String url, int method, String headers, ByteBuffer body, int bodyOffset, int bodySize) {
+            this.engine = engine;
+            this.object = object;
+            this.requestId = requestId;
+            this.url = url;
+            this.method = method;
+            this.headers = headers;
+            this.body = body;
+            this.bodyOffset = bodyOffset;
+            this.bodySize = bodySize;
+            this.host = hostOf(url);
+            this.state = new AtomicInteger(STATE_QUEUED);
+            this.submitTimeNanos = System.nanoTime();
+        }
+
+        public void run() {
+            this.engine.execute(this);
+        }
+
+        long queueWaitMs() {
+            return TimeUnit.NANOSECONDS.toMillis(this.startTimeNanos - this.submitTimeNanos);
+        }
+    }
+
+    private static final class HostLane {
+        int inFlight;
+        final ArrayDeque<Request> waiting;
+
+        private HostLane() {
+            this.waiting = new ArrayDeque<Request>();
+        }
+    }
+
+    NiaRequestEngine(int corePoolSize, int maxPoolSize, int maxInFlightPerHost) {
+        this.pending = new ConcurrentHashMap();
+        this.lanes = new ConcurrentHashMap();
+        this.maxInFlightPerHost = maxInFlightPerHost;
+        this.executor = new ThreadPoolExecutor(corePoolSize, maxPoolSize, 5, TimeUnit.SECONDS, new LinkedBlockingQueue());
+    }
+
+    void submit(long object, int requestId, String url, int method, String headers, ByteBuffer body, int bodyOffset, int bodySize) {
+        Request request = new Request(this, object, requestId, url, method, headers, body, bodyOffset, bodySize);
+        this.pending.put(Integer.valueOf(requestId), request);
+        HostLane lane = laneFor(request.host);
+        synchronized (lane) {
+            if (lane.inFlight >= this.maxInFlightPerHost) {
+                lane.waiting.addLast(request);
+                return;
+            }
+            lane.inFlight++;
+        }
+        this.executor.execute(request);
+    }
+
+    /**
+     * Cancels a request that has not started yet. A request that is already on the wire runs to
+     * completion and still reports back, exactly as before.
+     */
+    void cancel(int requestId) {
+        Request request = this.pending.remove(Integer.valueOf(requestId));
+        if (request != null) {
+            request.state.compareAndSet(STATE_QUEUED, STATE_CANCELLED);
+        }
+    }
+
+    private void execute(Request request) {
+        try {
+            if (request.state.compareAndSet(STATE_QUEUED, STATE_RUNNING)) {
+                this.pending.remove(Integer.valueOf(request.requestId), request);
+                request.startTimeNanos = System.nanoTime();
+                NiaNet.doSyncRequest(request);
+                if (Log.isLoggable(TAG, Log.DEBUG)) {
+                    Log.d(TAG, "Request " + request.requestId + " to " + request.host + " waited " + request.queueWaitMs() + " ms, wire " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - request.startTimeNanos) + " ms");
+                }
+            }
+        } finally {
+            scheduleNext(request.host);
+        }
+    }
+
+    private void scheduleNext(String host) {
+        Request next;
+        HostLane lane = laneFor(host);
+        synchronized (lane) {
+            do {
+                next = lane.waiting.pollFirst();
+                if (next == null) {
+                    lane.inFlight--;
+                    return;
+                }
+            } while (next.state.get() == STATE_CANCELLED);
+        }
+        this.executor.execute(next);
+    }
+
+    private HostLane laneFor(String host) {
+        HostLane lane = this.lanes.get(host);
+        if (lane != null) {
+            return lane;
+        }
+        HostLane created = new HostLane();
+        lane = this.lanes.putIfAbsent(host, created);
+        return lane != null ? lane : created;
+    }
+
+    private static String hostOf(String url) {
+        try {
+            URL parsed = new URL(url);
+            return parsed.getHost() + ":" + parsed.getPort();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+}
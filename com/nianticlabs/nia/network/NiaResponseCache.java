@@ -0,0 +1,396 @@
+package com.nianticlabs.nia.network;
+
+import android.util.Log;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * On-disk, size-bounded LRU cache for NiaNet GET responses.
+ *
+ * Entries are keyed by URL plus the values of a fixed set of request headers and remember the
+ * response's ETag and Last-Modified. NiaNet revalidates a hit with a conditional request and, on
+ * 304, hands the stored body to native code as if the server had sent it again.
+ *
+ * Each entry is one file: a small header written with DataOutputStream followed by the body.
+ * The in-memory index is loaded on a background thread once the cache is installed; until then
+ * every lookup is a miss and nothing is stored. It is kept in access order for eviction, and a
+ * file's modification time, which orders the next load, is bumped when its body is served.
+ */
+public final class NiaResponseCache {
+    private static final int FORMAT_VERSION = 1;
+    private static final String TAG = "NiaResponseCache";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private final File directory;
+    private final Map<String, Entry> index;
+    private final String[] keyHeaders;
+    private int generation;
+    private boolean loaded;
+    private boolean loading;
+    private final long maxBodyBytes;
+    private final long maxBytes;
+    private long totalBytes;
+
+    static final class Entry {
+        final long bodyLength;
+        final long dataOffset;
+        final String etag;
+        final File file;
+        final String headers;
+        final String key;
+        final String lastModified;
+
+        Entry(String key, File file, String etag, String lastModified, String headers, long dataOffset, long bodyLength) {
+            this.key = key;
+            this.file = file;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.headers = headers;
+            this.dataOffset = dataOffset;
+            this.bodyLength = bodyLength;
+        }
+
+        long size() {
+            return this.dataOffset + this.bodyLength;
+        }
+    }
+
+    public NiaResponseCache(File directory, long maxBytes, String... keyHeaders) {
+        this.index = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxBodyBytes = maxBytes / 8;
+        this.keyHeaders = keyHeaders;
+    }
+
+    String keyFor(String url, String requestHeaders) {
+        StringBuilder key = new StringBuilder(url);
+        for (String name : this.keyHeaders) {
+            String value = NiaNet.findHeader(requestHeaders, name);
+            key.append('\n').append(name).append(':');
+            if (value != null) {
+                key.append(value);
+            }
+        }
+        return key.toString();
+    }
+
+    synchronized Entry get(String key) {
+        if (!this.loaded) {
+            return null;
+        }
+        Entry entry = this.index.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!entry.file.exists()) {
+            remove(entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Reads the cached body into a buffer from {@code pool}, or returns null if the entry is gone
+     * or damaged, in which case it is dropped from the cache.
+     *
+     * This runs without the lock, so a concurrent put may have replaced the file since
+     * {@code entry} was looked up. The header of the file actually opened is checked against
+     * {@code entry} before its offsets are trusted; a replaced entry reads as a miss and
+     * is left to its newer version.
+     */
+    ByteBuffer readBody(Entry entry, DirectBufferPool pool) {
+        FileInputStream in = null;
+        ByteBuffer buffer = null;
+        try {
+            in = new FileInputStream(entry.file);
+            FileChannel channel = in.getChannel();
+            if (!matches(new DataInputStream(in), channel, entry)) {
+                synchronized (this) {
+                    remove(entry);
+                }
+                return null;
+            }
+            buffer = pool.acquire((int) Math.max(1, entry.bodyLength));
+            long position = entry.dataOffset;
+            while (buffer.position() < entry.bodyLength) {
+                int read = channel.read(buffer, position);
+                if (read < 0) {
+                    throw new IOException("Truncated cache entry");
+                }
+                position += (long) read;
+            }
+            entry.file.setLastModified(System.currentTimeMillis());
+            return buffer;
+        } catch (IOException e) {
+            Log.w(TAG, "Dropping unreadable cache entry: " + e.getMessage());
+            if (buffer != null) {
+                pool.release(buffer);
+            }
+            synchronized (this) {
+                remove(entry);
+            }
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Stores a 200 response whose body occupies {@code body[0, position)}. Responses without a
+     * validator, marked no-store, or too large for the cache are ignored.
+     */
+    void put(String key, String etag, String lastModified, String cacheControl, String responseHeaders, ByteBuffer body) {
+        if (etag == null && lastModified == null) {
+            return;
+        }
+        if (cacheControl != null && cacheControl.toLowerCase().contains("no-store")) {
+            return;
+        }
+        if (((long) body.position()) > this.maxBodyBytes) {
+            return;
+        }
+        String name = hash(key);
+        if (name == null) {
+            return;
+        }
+        synchronized (this) {
+            if (!this.loaded) {
+                return;
+            }
+        }
+        File file = new File(this.directory, name);
+        File temp = new File(this.directory, name + TEMP_SUFFIX + Thread.currentThread().getId());
+        FileOutputStream out = null;
+        try {
+            out = new FileOutputStream(temp);
+            DataOutputStream header = new DataOutputStream(out);
+            header.writeInt(FORMAT_VERSION);
+            header.writeUTF(key);
+            writeNullableUTF(header, etag);
+            writeNullableUTF(header, lastModified);
+            writeNullableUTF(header, responseHeaders);
+            header.writeLong((long) body.position());
+            header.flush();
+            long dataOffset = out.getChannel().position();
+            ByteBuffer data = body.duplicate();
+            data.flip();
+            FileChannel channel = out.getChannel();
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+            out.close();
+            out = null;
+            synchronized (this) {
+                Entry old = this.index.remove(key);
+                if (old != null) {
+                    this.totalBytes -= old.size();
+                }
+                if (!temp.renameTo(file)) {
+                    throw new IOException("Unable to commit " + file);
+                }
+                Entry entry = new Entry(key, file, etag, lastModified, responseHeaders, dataOffset, (long) body.position());
+                this.index.put(key, entry);
+                this.totalBytes += entry.size();
+                trimToSize();
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to cache response: " + e.getMessage());
+            temp.delete();
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    private static boolean matches(DataInputStream header, FileChannel channel, Entry entry) throws IOException {
+        if (header.readInt() != FORMAT_VERSION || !header.readUTF().equals(entry.key)) {
+            return false;
+        }
+        if (!equal(readNullableUTF(header), entry.etag) || !equal(readNullableUTF(header), entry.lastModified)) {
+            return false;
+        }
+        readNullableUTF(header);
+        return header.readLong() == entry.bodyLength && channel.position() == entry.dataOffset;
+    }
+
+    private static boolean equal(String lhs, String rhs) {
+        return lhs == null ? rhs == null : lhs.equals(rhs);
+    }
+
+    /**
+     * Deletes every entry, including any a load still in progress has not published yet.
+     */
+    public synchronized void clear() {
+        this.generation++;
+        for (Entry entry : new ArrayList<Entry>(this.index.values())) {
+            remove(entry);
+        }
+        File[] files = this.directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Drops {@code entry} unless a newer version of it has been stored in the meantime.
+     */
+    private void remove(Entry entry) {
+        if (this.index.get(entry.key) == entry) {
+            this.index.remove(entry.key);
+            this.totalBytes -= entry.size();
+            entry.file.delete();
+        }
+    }
+
+    private void trimToSize() {
+        Iterator<Entry> eldest = this.index.values().iterator();
+        while (this.totalBytes > this.maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            eldest.remove();
+            this.totalBytes -= entry.size();
+            entry.file.delete();
+        }
+    }
+
+    /**
+     * Starts loading the index on its own thread, once.
+     */
+    void loadAsync() {
+        synchronized (this) {
+            if (this.loaded || this.loading) {
+                return;
+            }
+            this.loading = true;
+        }
+        Thread loader = new Thread(new Runnable() {
+            public void run() {
+                NiaResponseCache.this.load();
+            }
+        }, TAG);
+        loader.setPriority(Thread.MIN_PRIORITY);
+        loader.start();
+    }
+
+    /**
+     * Scans the directory without holding the lock and publishes the result under it, unless
+     * {@link #clear()} ran in the meantime.
+     */
+    private void load() {
+        int startGeneration;
+        synchronized (this) {
+            startGeneration = this.generation;
+        }
+        Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+        if (!this.directory.isDirectory() && !this.directory.mkdirs()) {
+            Log.e(TAG, "Unable to create cache directory " + this.directory);
+        } else {
+            File[] files = this.directory.listFiles();
+            if (files == null) {
+                files = new File[0];
+            }
+            Arrays.sort(files, new Comparator<File>() {
+                public int compare(File lhs, File rhs) {
+                    long diff = lhs.lastModified() - rhs.lastModified();
+                    return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+                }
+            });
+            for (File file : files) {
+                Entry entry = file.getName().contains(TEMP_SUFFIX) ? null : readEntry(file);
+                if (entry == null) {
+                    file.delete();
+                } else {
+                    entries.put(entry.key, entry);
+                }
+            }
+        }
+        synchronized (this) {
+            if (startGeneration == this.generation) {
+                for (Entry entry : entries.values()) {
+                    this.index.put(entry.key, entry);
+                    this.totalBytes += entry.size();
+                }
+            }
+            this.loaded = true;
+            this.loading = false;
+            trimToSize();
+        }
+    }
+
+    private static Entry readEntry(File file) {
+        DataInputStream in = null;
+        try {
+            FileInputStream stream = new FileInputStream(file);
+            in = new DataInputStream(stream);
+            if (in.readInt() != FORMAT_VERSION) {
+                return null;
+            }
+            String key = in.readUTF();
+            String etag = readNullableUTF(in);
+            String lastModified = readNullableUTF(in);
+            String headers = readNullableUTF(in);
+            long bodyLength = in.readLong();
+            long dataOffset = stream.getChannel().position();
+            if (dataOffset + bodyLength != file.length()) {
+                return null;
+            }
+            return new Entry(key, file, etag, lastModified, headers, dataOffset, bodyLength);
+        } catch (IOException e) {
+            return null;
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private static void writeNullableUTF(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullableUTF(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes("UTF-8"));
+            StringBuilder name = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                name.append(Character.forDigit((b >> 4) & 15, 16));
+                name.append(Character.forDigit(b & 15, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return null;
+        } catch (UnsupportedEncodingException e2) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+            }
+        }
+    }
+}
@@ -5,15 +5,20 @@ import android.content.SharedPreferences;
 import android.provider.Settings.Secure;
 import android.util.Base64;
 import com.nianticlabs.nia.contextservice.ContextService;
+import com.nianticlabs.nia.network.NiaNet;
+import com.nianticlabs.nia.network.NiaResponseCache;
 import java.io.File;
 import java.util.Locale;
 
 public class AndroidPlatformContext extends ContextService {
+    private static final String RESPONSE_CACHE_DIRECTORY = "nianet";
+    private static final long RESPONSE_CACHE_MAX_BYTES = 33554432;
     private final SharedPreferences prefs;
 
     public AndroidPlatformContext(Context context, long nativeClassPointer) {
         super(context, nativeClassPointer);
         this.prefs = context.getSharedPreferences(context.getPackageName() + ".PREFS", 0);
+        NiaNet.setResponseCache(new NiaResponseCache(new File(context.getCacheDir(), RESPONSE_CACHE_DIRECTORY), RESPONSE_CACHE_MAX_BYTES, "Accept", "Accept-Encoding", "Accept-Language"));
     }
 
     public String getDeviceCountryCode() {
@@ -7,68 +7,95 @@ import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
 import android.location.Location;
-import android.support.v4.media.TransportMediator;
 import android.view.Display;
 import android.view.WindowManager;
 import com.google.android.gms.location.places.Place;
 import com.nianticlabs.nia.contextservice.ContextService;
 import com.nianticlabs.nia.contextservice.ServiceStatus;
-import com.nianticproject.holoholo.sfida.SfidaMessage;
-import com.nianticproject.holoholo.sfida.constants.BluetoothGattSupport;
 import spacemadness.com.lunarconsole.C1391R;
 
 public class NianticSensorManager extends ContextService implements SensorEventListener {
-    private static final float ANGLE_CHANGE_THRESHOLD_DEGREES = 1.0f;
+    private static final int BATCH_CAPACITY = 64;
     private static final int DECLINATION_UPDATE_INTERVAL_MSEC = 600000;
     private static final boolean ENABLE_VERBOSE_LOGS = false;
-    private static final int MAX_SENSOR_UPDATE_DIFF_MSEC = 5000;
-    private static final int MIN_SENSOR_UPDATE_INTERVAL_MSEC = 50;
-    private static final float SINE_OF_45_DEGREES;
+    private static final long MAX_SENSOR_UPDATE_DIFF_NSEC = 5000000000L;
+    private static final int MAX_SENSOR_TYPE = 32;
+    private static final long MIN_SENSOR_UPDATE_INTERVAL_NSEC = 50000000;
     private static final String TAG = "NianticSensorManager";
     private Sensor accelerometer;
     private float[] accelerometerData;
-    private long accelerometerReadingMs;
+    private long accelerometerReadingNs;
+    private int batchIntervalMs;
+    private final SensorSampleBuffer batchSamples;
     private float declination;
     private long declinationUpdateTimeMs;
     private final Display display;
+    private boolean flushScheduled;
+    private final Runnable flushSamples;
     private Sensor gravity;
     private Sensor gyroscope;
-    private float lastAzimuthUpdate;
-    private float lastPitchUpdate;
-    private long lastUpdateTimeMs;
+    private long lastBatchFlushMs;
     private Sensor linearAcceleration;
     private Sensor magnetic;
     private float[] magneticData;
-    private long magnetometerReadingMs;
-    private final AngleFilter orientationFilter;
+    private long magnetometerReadingNs;
+    private final OrientationFusion orientation;
     private Sensor rotation;
-    private float[] rotationData;
+    private final boolean[] sensorIgnored;
     private final SensorManager sensorManager;
     private ServiceStatus status;
-    private final float[] tmpMatrix1;
-    private final float[] tmpMatrix2;
-    private final float[] tmpMatrix3;
-    private final float[] tmpOrientationAngles;
 
     private native void nativeCompassUpdate(long j, float f);
 
+    private native void nativeSensorBatchUpdate(int i, int[] iArr, long[] jArr, float[] fArr, int[] iArr2);
+
     private native void nativeSensorUpdate(int i, long j, float[] fArr);
 
-    static {
-        SINE_OF_45_DEGREES = ((float) Math.sqrt(2.0d)) / 2.0f;
+    private class FlushSamples implements Runnable {
+        private FlushSamples() {
+        }
+
+        public void run() {
+            NianticSensorManager.this.flushSensorSamples(System.currentTimeMillis());
+        }
+    }
+
+    private class SetBatchInterval implements Runnable {
+        private final int intervalMs;
+
+        private SetBatchInterval(int intervalMs) {
+            this.intervalMs = intervalMs;
+        }
+
+        public void run() {
+            NianticSensorManager.this.flushSensorSamples(System.currentTimeMillis());
+            NianticSensorManager.this.batchIntervalMs = this.intervalMs;
+        }
+    }
+
+    private class SetSensorInterest implements Runnable {
+        private final boolean interested;
+        private final int sensorType;
+
+        private SetSensorInterest(int sensorType, boolean interested) {
+            this.sensorType = sensorType;
+            this.interested = interested;
+        }
+
+        public void run() {
+            NianticSensorManager.this.updateSensorInterest(this.sensorType, this.interested);
+        }
     }
 
     public NianticSensorManager(Context context, long nativeClassPointer) {
         super(context, nativeClassPointer);
-        this.tmpMatrix1 = new float[9];
-        this.tmpMatrix2 = new float[9];
-        this.tmpMatrix3 = new float[9];
-        this.tmpOrientationAngles = new float[3];
-        this.orientationFilter = new AngleFilter(true);
+        this.orientation = new OrientationFusion(MIN_SENSOR_UPDATE_INTERVAL_NSEC);
         this.status = ServiceStatus.UNDEFINED;
         this.accelerometerData = new float[3];
         this.magneticData = new float[3];
-        this.rotationData = new float[5];
+        this.batchSamples = new SensorSampleBuffer(BATCH_CAPACITY);
+        this.flushSamples = new FlushSamples();
+        this.sensorIgnored = new boolean[MAX_SENSOR_TYPE];
         this.display = ((WindowManager) context.getSystemService("window")).getDefaultDisplay();
         this.sensorManager = (SensorManager) context.getSystemService("sensor");
         this.gravity = this.sensorManager.getDefaultSensor(9);
@@ -93,11 +120,28 @@ public class NianticSensorManager extends ContextService implements SensorEventL
         stopSensorManager();
     }
 
+    /**
+     * Switches native sensor updates between one JNI call per event (intervalMs <= 0, the default)
+     * and batches flushed once every intervalMs, e.g. once per frame.
+     */
+    public void setSensorBatching(int intervalMs) {
+        ContextService.runOnServiceHandler(new SetBatchInterval(intervalMs));
+    }
+
+    /**
+     * Tells the manager whether native code wants updates for a sensor type. Sensors that only
+     * feed native code are unregistered while nobody wants them; the accelerometer, magnetometer
+     * and rotation vector keep running because the compass is computed from them.
+     */
+    public void setSensorInterest(int sensorType, boolean interested) {
+        ContextService.runOnServiceHandler(new SetSensorInterest(sensorType, interested));
+    }
+
     private void startSensorManager() {
-        if (this.gravity != null) {
+        if (this.gravity != null && isInterested(9)) {
             this.sensorManager.registerListener(this, this.gravity, 3, ContextService.getServiceHandler());
         }
-        if (this.gyroscope != null) {
+        if (this.gyroscope != null && isInterested(4)) {
             this.sensorManager.registerListener(this, this.gyroscope, 3, ContextService.getServiceHandler());
         }
         if (this.accelerometer != null) {
@@ -109,7 +153,7 @@ public class NianticSensorManager extends ContextService implements SensorEventL
         if (this.rotation != null) {
             this.sensorManager.registerListener(this, this.rotation, 2, ContextService.getServiceHandler());
         }
-        if (this.linearAcceleration != null) {
+        if (this.linearAcceleration != null && isInterested(10)) {
             this.sensorManager.registerListener(this, this.linearAcceleration, 3, ContextService.getServiceHandler());
         }
         this.status = ServiceStatus.INITIALIZED;
@@ -117,143 +161,94 @@ public class NianticSensorManager extends ContextService implements SensorEventL
 
     private void stopSensorManager() {
         this.sensorManager.unregisterListener(this);
+        flushSensorSamples(System.currentTimeMillis());
         this.status = ServiceStatus.STOPPED;
     }
 
+    private void updateSensorInterest(int sensorType, boolean interested) {
+        if (sensorType < 0 || sensorType >= MAX_SENSOR_TYPE || this.sensorIgnored[sensorType] != interested) {
+            return;
+        }
+        this.sensorIgnored[sensorType] = !interested;
+        if (this.status == ServiceStatus.INITIALIZED || this.status == ServiceStatus.RUNNING) {
+            this.sensorManager.unregisterListener(this);
+            startSensorManager();
+        }
+    }
+
+    private boolean isInterested(int sensorType) {
+        return sensorType < 0 || sensorType >= MAX_SENSOR_TYPE || !this.sensorIgnored[sensorType];
+    }
+
     public void onSensorChanged(SensorEvent event) {
         this.status = ServiceStatus.RUNNING;
         long now = System.currentTimeMillis();
         switch (event.sensor.getType()) {
             case C1391R.styleable.LoadingImageView_imageAspectRatio /*1*/:
-                this.accelerometerReadingMs = now;
+                this.accelerometerReadingNs = event.timestamp;
                 System.arraycopy(event.values, 0, this.accelerometerData, 0, this.accelerometerData.length);
-                if (updateOrientationFromRaw(now)) {
-                    safeCompassUpdate(this.lastUpdateTimeMs, this.lastAzimuthUpdate);
+                if (updateOrientationFromRaw(event.timestamp)) {
+                    safeCompassUpdate(now, this.orientation.getAzimuth());
                     break;
                 }
                 break;
             case C1391R.styleable.LoadingImageView_circleCrop /*2*/:
-                this.magnetometerReadingMs = now;
+                this.magnetometerReadingNs = event.timestamp;
                 System.arraycopy(event.values, 0, this.magneticData, 0, this.magneticData.length);
-                if (updateOrientationFromRaw(now)) {
-                    safeCompassUpdate(this.lastUpdateTimeMs, this.lastAzimuthUpdate);
+                if (updateOrientationFromRaw(event.timestamp)) {
+                    safeCompassUpdate(now, this.orientation.getAzimuth());
                     break;
                 }
                 break;
             case Place.TYPE_BICYCLE_STORE /*11*/:
-                System.arraycopy(event.values, 0, this.rotationData, 0, Math.min(event.values.length, this.rotationData.length));
-                if (event.values.length == 3) {
-                    this.rotationData[3] = computeRotationVectorW(this.rotationData);
-                }
-                if (updateOrientationFromRotation(now)) {
-                    safeCompassUpdate(this.lastUpdateTimeMs, this.lastAzimuthUpdate);
+                this.orientation.setDeclination(getDeclination());
+                if (this.orientation.updateFromRotationVector(event.timestamp, event.values, this.display.getRotation())) {
+                    safeCompassUpdate(now, this.orientation.getAzimuth());
                     break;
                 }
                 break;
         }
-        safeSensorUpdate(event.sensor.getType(), now, event.values);
-    }
-
-    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        dispatchSensorSample(event.sensor.getType(), now, event.values);
     }
 
-    private boolean updateOrientationFromRotation(long now) {
-        if (this.lastUpdateTimeMs + 50 > now) {
-            return ENABLE_VERBOSE_LOGS;
+    private void dispatchSensorSample(int type, long now, float[] values) {
+        if (!isInterested(type)) {
+            return;
         }
-        float[] matrix = this.tmpMatrix1;
-        calcMatrixFromRotationVector(this.rotationData, matrix);
-        return updateOrientation(now, matrix);
-    }
-
-    private void calcMatrixFromRotationVector(float[] reading, float[] matrix) {
-        float q0 = reading[3];
-        float q1 = reading[0];
-        float q2 = reading[1];
-        float q3 = reading[2];
-        float sq_q1 = (2.0f * q1) * q1;
-        float sq_q2 = (2.0f * q2) * q2;
-        float sq_q3 = (2.0f * q3) * q3;
-        float q1_q2 = (2.0f * q1) * q2;
-        float q3_q0 = (2.0f * q3) * q0;
-        float q1_q3 = (2.0f * q1) * q3;
-        float q2_q0 = (2.0f * q2) * q0;
-        float q2_q3 = (2.0f * q2) * q3;
-        float q1_q0 = (2.0f * q1) * q0;
-        matrix[0] = (ANGLE_CHANGE_THRESHOLD_DEGREES - sq_q2) - sq_q3;
-        matrix[1] = q1_q2 - q3_q0;
-        matrix[2] = q1_q3 + q2_q0;
-        matrix[3] = q1_q2 + q3_q0;
-        matrix[4] = (ANGLE_CHANGE_THRESHOLD_DEGREES - sq_q1) - sq_q3;
-        matrix[5] = q2_q3 - q1_q0;
-        matrix[6] = q1_q3 - q2_q0;
-        matrix[7] = q2_q3 + q1_q0;
-        matrix[8] = (ANGLE_CHANGE_THRESHOLD_DEGREES - sq_q1) - sq_q2;
-    }
-
-    private float computeRotationVectorW(float[] xyz) {
-        float sumOfSquares = SINE_OF_45_DEGREES;
-        for (float v : xyz) {
-            sumOfSquares += v * v;
+        if (this.batchIntervalMs <= 0) {
+            safeSensorUpdate(type, now, values);
+        } else if (this.batchSamples.add(type, now, values) || now - this.lastBatchFlushMs >= ((long) this.batchIntervalMs)) {
+            flushSensorSamples(now);
+        } else if (!this.flushScheduled) {
+            this.flushScheduled = true;
+            ContextService.getServiceHandler().postDelayed(this.flushSamples, (long) this.batchIntervalMs);
         }
-        return (float) Math.sqrt((double) (ANGLE_CHANGE_THRESHOLD_DEGREES - Math.min(sumOfSquares, ANGLE_CHANGE_THRESHOLD_DEGREES)));
     }
 
-    private boolean updateOrientationFromRaw(long now) {
-        if (this.lastUpdateTimeMs + 50 > now || Math.abs(this.accelerometerReadingMs - this.magnetometerReadingMs) > 5000) {
-            return ENABLE_VERBOSE_LOGS;
+    private void flushSensorSamples(long now) {
+        if (this.flushScheduled) {
+            this.flushScheduled = false;
+            ContextService.getServiceHandler().removeCallbacks(this.flushSamples);
         }
-        float[] matrix = this.tmpMatrix1;
-        if (SensorManager.getRotationMatrix(matrix, null, this.accelerometerData, this.magneticData)) {
-            return updateOrientation(now, matrix);
+        this.lastBatchFlushMs = now;
+        SensorSampleBuffer samples = this.batchSamples;
+        if (!samples.isEmpty()) {
+            synchronized (this.callbackLock) {
+                nativeSensorBatchUpdate(samples.size(), samples.types, samples.timestamps, samples.values, samples.lengths);
+            }
+            samples.clear();
         }
-        return ENABLE_VERBOSE_LOGS;
     }
 
-    private boolean updateOrientation(long now, float[] matrix) {
-        int xAxis;
-        int yAxis;
-        switch (this.display.getRotation()) {
-            case C1391R.styleable.LoadingImageView_imageAspectRatio /*1*/:
-                xAxis = 2;
-                yAxis = BluetoothGattSupport.GATT_INTERNAL_ERROR;
-                break;
-            case C1391R.styleable.LoadingImageView_circleCrop /*2*/:
-                xAxis = BluetoothGattSupport.GATT_INTERNAL_ERROR;
-                yAxis = TransportMediator.KEYCODE_MEDIA_RECORD;
-                break;
-            case SfidaMessage.ACTIVITY_BYTE_LENGTH /*3*/:
-                xAxis = TransportMediator.KEYCODE_MEDIA_RECORD;
-                yAxis = 1;
-                break;
-            default:
-                xAxis = 1;
-                yAxis = 2;
-                break;
-        }
-        float[] tmpAngles = this.tmpOrientationAngles;
-        if (!SensorManager.remapCoordinateSystem(matrix, xAxis, yAxis, this.tmpMatrix2)) {
-            return ENABLE_VERBOSE_LOGS;
-        }
-        float pitch;
-        if (this.tmpMatrix2[7] <= SINE_OF_45_DEGREES) {
-            SensorManager.getOrientation(this.tmpMatrix2, tmpAngles);
-            pitch = (float) Math.toDegrees((double) tmpAngles[1]);
-        } else if (!SensorManager.remapCoordinateSystem(this.tmpMatrix2, 1, 3, this.tmpMatrix3)) {
-            return ENABLE_VERBOSE_LOGS;
-        } else {
-            SensorManager.getOrientation(this.tmpMatrix3, tmpAngles);
-            pitch = ((float) Math.toDegrees((double) tmpAngles[1])) - 90.0f;
-        }
-        long j = now;
-        float azimuth = this.orientationFilter.filter(j, MathUtil.RADIANS_TO_DEGREES * MathUtil.wrapAngle(tmpAngles[0] + (MathUtil.DEGREES_TO_RADIANS * getDeclination())));
-        if (Math.abs(azimuth - this.lastAzimuthUpdate) < ANGLE_CHANGE_THRESHOLD_DEGREES && Math.abs(pitch - this.lastPitchUpdate) < ANGLE_CHANGE_THRESHOLD_DEGREES) {
-            return ENABLE_VERBOSE_LOGS;
+    public void onAccuracyChanged(Sensor sensor, int accuracy) {
+    }
+
+    private boolean updateOrientationFromRaw(long timestampNs) {
+        if (Math.abs(this.accelerometerReadingNs - this.magnetometerReadingNs) > MAX_SENSOR_UPDATE_DIFF_NSEC) {
+            return false;
         }
-        this.lastAzimuthUpdate = azimuth;
-        this.lastPitchUpdate = pitch;
-        this.lastUpdateTimeMs = now;
-        return true;
+        this.orientation.setDeclination(getDeclination());
+        return this.orientation.updateFromAccelMag(timestampNs, this.accelerometerData, this.magneticData, this.display.getRotation());
     }
 
     private float getDeclination() {
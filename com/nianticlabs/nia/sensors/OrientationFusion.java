@@ -0,0 +1,226 @@
+package com.nianticlabs.nia.sensors;
+
+/**
+ * Allocation-free azimuth/pitch estimator driven by {@code SensorEvent.timestamp}.
+ *
+ * The rotation-vector path reads the handful of rotation-matrix entries it needs straight from
+ * the quaternion, and the accelerometer/magnetometer path builds the same columns with two cross
+ * products, so neither goes through {@code SensorManager.remapCoordinateSystem} or
+ * {@code getOrientation}. The display rotation is applied by picking and negating columns,
+ * which is exactly what the remap does for the four screen orientations.
+ *
+ * Azimuth is smoothed with a first-order low-pass whose time constant shrinks as the device
+ * turns faster: steady hands get a quiet compass and fast turns are followed without lag. The
+ * gain is the rational form dt / (tau + dt), so there is no {@code Math.exp} per sample.
+ */
+public final class OrientationFusion {
+    private static final float ANGLE_CHANGE_THRESHOLD_DEGREES = 1.0f;
+    private static final float FAST_TIME_CONSTANT_SEC = 0.04f;
+    private static final float FREE_FALL_GRAVITY_SQUARED = 0.9604f;
+    private static final float MIN_MAGNETIC_CROSS = 0.1f;
+    private static final long MAX_SAMPLE_GAP_NS = 1000000000;
+    private static final float NANOSECONDS_TO_SECONDS = 1.0E-9f;
+    private static final float RATE_REFERENCE_DEG_PER_SEC = 90.0f;
+    private static final float SINE_OF_45_DEGREES = 0.70710677f;
+    private static final float SLOW_TIME_CONSTANT_SEC = 0.35f;
+    private float azimuth;
+    private float declination;
+    private boolean hasEstimate;
+    private float lastPublishedAzimuth;
+    private float lastPublishedPitch;
+    private long lastPublishNs;
+    private long lastSampleNs;
+    private final long minPublishIntervalNs;
+    private float pitch;
+    private final float[] rotation;
+
+    public OrientationFusion(long minPublishIntervalNs) {
+        this.rotation = new float[9];
+        this.minPublishIntervalNs = minPublishIntervalNs;
+    }
+
+    public void setDeclination(float degrees) {
+        this.declination = degrees;
+    }
+
+    public float getAzimuth() {
+        return this.lastPublishedAzimuth;
+    }
+
+    public float getPitch() {
+        return this.lastPublishedPitch;
+    }
+
+    /**
+     * Feeds a TYPE_ROTATION_VECTOR reading (x, y, z[, w]) and returns true when azimuth or pitch
+     * moved enough to publish.
+     */
+    public boolean updateFromRotationVector(long timestampNs, float[] values, int displayRotation) {
+        if (isThrottled(timestampNs)) {
+            return false;
+        }
+        float x = values[0];
+        float y = values[1];
+        float z = values[2];
+        float w;
+        if (values.length > 3) {
+            w = values[3];
+        } else {
+            float ww = ((1.0f - (x * x)) - (y * y)) - (z * z);
+            w = ww > 0.0f ? (float) Math.sqrt((double) ww) : 0.0f;
+        }
+        float[] r = this.rotation;
+        float xx = (2.0f * x) * x;
+        float yy = (2.0f * y) * y;
+        float zz = (2.0f * z) * z;
+        float xy = (2.0f * x) * y;
+        float xz = (2.0f * x) * z;
+        float yz = (2.0f * y) * z;
+        float xw = (2.0f * x) * w;
+        float yw = (2.0f * y) * w;
+        float zw = (2.0f * z) * w;
+        r[0] = (1.0f - yy) - zz;
+        r[1] = xy - zw;
+        r[2] = xz + yw;
+        r[3] = xy + zw;
+        r[4] = (1.0f - xx) - zz;
+        r[5] = yz - xw;
+        r[6] = xz - yw;
+        r[7] = yz + xw;
+        r[8] = (1.0f - xx) - yy;
+        return solve(timestampNs, displayRotation);
+    }
+
+    /**
+     * Feeds a matched accelerometer/magnetometer pair. Returns false without touching the
+     * estimate when the device is in free fall or the field is parallel to gravity.
+     */
+    public boolean updateFromAccelMag(long timestampNs, float[] gravity, float[] geomagnetic, int displayRotation) {
+        if (isThrottled(timestampNs)) {
+            return false;
+        }
+        float ax = gravity[0];
+        float ay = gravity[1];
+        float az = gravity[2];
+        float normA2 = ((ax * ax) + (ay * ay)) + (az * az);
+        if (normA2 < FREE_FALL_GRAVITY_SQUARED) {
+            return false;
+        }
+        float ex = geomagnetic[0];
+        float ey = geomagnetic[1];
+        float ez = geomagnetic[2];
+        float hx = (ey * az) - (ez * ay);
+        float hy = (ez * ax) - (ex * az);
+        float hz = (ex * ay) - (ey * ax);
+        float normH = (float) Math.sqrt((double) (((hx * hx) + (hy * hy)) + (hz * hz)));
+        if (normH < MIN_MAGNETIC_CROSS) {
+            return false;
+        }
+        float invH = 1.0f / normH;
+        hx *= invH;
+        hy *= invH;
+        hz *= invH;
+        float invA = 1.0f / ((float) Math.sqrt((double) normA2));
+        ax *= invA;
+        ay *= invA;
+        az *= invA;
+        float[] r = this.rotation;
+        r[0] = hx;
+        r[1] = hy;
+        r[2] = hz;
+        r[3] = (ay * hz) - (az * hy);
+        r[4] = (az * hx) - (ax * hz);
+        r[5] = (ax * hy) - (ay * hx);
+        r[6] = ax;
+        r[7] = ay;
+        r[8] = az;
+        return solve(timestampNs, displayRotation);
+    }
+
+    private boolean isThrottled(long timestampNs) {
+        return this.hasEstimate && timestampNs >= this.lastPublishNs && timestampNs - this.lastPublishNs < this.minPublishIntervalNs;
+    }
+
+    private boolean solve(long timestampNs, int displayRotation) {
+        float[] r = this.rotation;
+        float c1x;
+        float c1y;
+        float c1z;
+        switch (displayRotation) {
+            case 1:
+                c1x = r[0];
+                c1y = r[3];
+                c1z = r[6];
+                break;
+            case 2:
+                c1x = -r[1];
+                c1y = -r[4];
+                c1z = -r[7];
+                break;
+            case 3:
+                c1x = -r[0];
+                c1y = -r[3];
+                c1z = -r[6];
+                break;
+            default:
+                c1x = r[1];
+                c1y = r[4];
+                c1z = r[7];
+                break;
+        }
+        float rawAzimuth;
+        float newPitch;
+        if (c1z <= SINE_OF_45_DEGREES) {
+            rawAzimuth = (float) Math.atan2((double) c1x, (double) c1y);
+            newPitch = MathUtil.RADIANS_TO_DEGREES * ((float) Math.asin((double) clampUnit(-c1z)));
+        } else {
+            rawAzimuth = (float) Math.atan2((double) (-r[2]), (double) (-r[5]));
+            newPitch = (MathUtil.RADIANS_TO_DEGREES * ((float) Math.asin((double) clampUnit(r[8])))) - 90.0f;
+        }
+        float target = wrapDegrees((MathUtil.RADIANS_TO_DEGREES * rawAzimuth) + this.declination);
+        smoothAzimuth(timestampNs, target);
+        this.pitch = newPitch;
+        if (Math.abs(wrapDelta(this.azimuth - this.lastPublishedAzimuth)) < ANGLE_CHANGE_THRESHOLD_DEGREES && Math.abs(this.pitch - this.lastPublishedPitch) < ANGLE_CHANGE_THRESHOLD_DEGREES) {
+            return false;
+        }
+        this.lastPublishedAzimuth = this.azimuth;
+        this.lastPublishedPitch = this.pitch;
+        this.lastPublishNs = timestampNs;
+        return true;
+    }
+
+    private void smoothAzimuth(long timestampNs, float target) {
+        long gapNs = timestampNs - this.lastSampleNs;
+        this.lastSampleNs = timestampNs;
+        if (!this.hasEstimate || gapNs <= 0 || gapNs > MAX_SAMPLE_GAP_NS) {
+            this.hasEstimate = true;
+            this.azimuth = target;
+            return;
+        }
+        float dt = ((float) gapNs) * NANOSECONDS_TO_SECONDS;
+        float diff = wrapDelta(target - this.azimuth);
+        float rate = Math.abs(diff) / dt;
+        float tau = FAST_TIME_CONSTANT_SEC + ((SLOW_TIME_CONSTANT_SEC - FAST_TIME_CONSTANT_SEC) / ((rate / RATE_REFERENCE_DEG_PER_SEC) + 1.0f));
+        this.azimuth = wrapDegrees(this.azimuth + ((dt / (tau + dt)) * diff));
+    }
+
+    private static float clampUnit(float value) {
+        return value > 1.0f ? 1.0f : value < -1.0f ? -1.0f : value;
+    }
+
+    private static float wrapDelta(float degrees) {
+        if (degrees > 180.0f) {
+            return degrees - 360.0f;
+        }
+        return degrees <= -180.0f ? degrees + 360.0f : degrees;
+    }
+
+    private static float wrapDegrees(float degrees) {
+        if (degrees >= 360.0f) {
+            degrees -= 360.0f;
+        } else if (degrees < 0.0f) {
+            degrees += 360.0f;
+        }
+        return degrees;
+    }
+}
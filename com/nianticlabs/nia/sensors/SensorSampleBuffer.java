@@ -0,0 +1,55 @@
+package com.nianticlabs.nia.sensors;
+
+/**
+ * Preallocated buffer of sensor samples waiting to be handed to native code in one call.
+ *
+ * Samples are stored column-wise in primitive arrays so that appending never allocates and a
+ * flush passes the arrays across JNI as-is. Each sample owns {@link #STRIDE} floats of
+ * {@link #values}; readings with fewer components are zero-padded and {@link #lengths} records
+ * how many were real.
+ */
+final class SensorSampleBuffer {
+    static final int STRIDE = 5;
+    private int count;
+    final int[] lengths;
+    final long[] timestamps;
+    final int[] types;
+    final float[] values;
+
+    SensorSampleBuffer(int capacity) {
+        this.types = new int[capacity];
+        this.lengths = new int[capacity];
+        this.timestamps = new long[capacity];
+        this.values = new float[(capacity * STRIDE)];
+    }
+
+    /**
+     * Appends a sample and returns true when the buffer has no room left for another one.
+     */
+    boolean add(int type, long timestamp, float[] sample) {
+        int index = this.count;
+        int length = Math.min(sample.length, STRIDE);
+        int base = index * STRIDE;
+        this.types[index] = type;
+        this.timestamps[index] = timestamp;
+        this.lengths[index] = length;
+        System.arraycopy(sample, 0, this.values, base, length);
+        for (int i = length; i < STRIDE; i++) {
+            this.values[base + i] = 0.0f;
+        }
+        this.count = index + 1;
+        return this.count == this.types.length;
+    }
+
+    int size() {
+        return this.count;
+    }
+
+    boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    void clear() {
+        this.count = 0;
+    }
+}
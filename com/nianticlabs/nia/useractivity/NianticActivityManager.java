@@ -24,6 +24,7 @@ public class NianticActivityManager extends ContextService {
     private static final String TAG = "NianticActivityManager";
     private static WeakReference<NianticActivityManager> instance;
     private static Object instanceLock;
+    private static WeakReference<ActivityListener> listener;
     private final PendingIntent activityRecognitionIntent;
     private AppState appState;
     Listener googleApiListener;
@@ -88,10 +89,15 @@ public class NianticActivityManager extends ContextService {
                     results[i2] = (long) activity.getConfidence();
                 }
                 NianticActivityManager.this.safeUpdateActivity(results, NianticActivityManager.this.status.ordinal());
+                NianticActivityManager.notifyActivityListener(this.val$result.getMostProbableActivity());
             }
         }
     }
 
+    public interface ActivityListener {
+        void onActivityDetected(int i, int i2);
+    }
+
     private enum AppState {
         START,
         STOP,
@@ -109,6 +115,27 @@ public class NianticActivityManager extends ContextService {
     static {
         instance = null;
         instanceLock = new Object();
+        listener = null;
+    }
+
+    /**
+     * Registers the one listener told about the most probable activity of each recognition
+     * result, on the service thread. The listener is held weakly.
+     */
+    public static void setActivityListener(ActivityListener activityListener) {
+        synchronized (instanceLock) {
+            listener = activityListener != null ? new WeakReference(activityListener) : null;
+        }
+    }
+
+    private static void notifyActivityListener(DetectedActivity activity) {
+        ActivityListener activityListener;
+        synchronized (instanceLock) {
+            activityListener = listener != null ? (ActivityListener) listener.get() : null;
+        }
+        if (activityListener != null && activity != null) {
+            activityListener.onActivityDetected(activity.getType(), activity.getConfidence());
+        }
     }
 
     public static Object getInstanceLock() {
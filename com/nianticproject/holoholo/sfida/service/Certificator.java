@@ -11,8 +11,12 @@ import com.nianticproject.holoholo.sfida.service.SfidaWatchDog.OnTimeoutListener
 import java.util.UUID;
 import spacemadness.com.lunarconsole.C1391R;
 
+/**
+ * Walks the SFIDA through the certification handshake. Each stage starts as soon as the device
+ * answers the previous one; the GATT operation queue makes every write wait for the one before
+ * it, so there are no fixed delays or polling of write callbacks between stages.
+ */
 public class Certificator {
-    private static final int DELAY_TIME = 1000;
     public final String TAG;
     private volatile CertificationState certificationState;
     Handler delayHandler;
@@ -98,13 +102,15 @@ public class Certificator {
             }
         }
 
-        /* renamed from: com.nianticproject.holoholo.sfida.service.Certificator.CertificateRunnable.3 */
-        class C07863 implements Runnable {
-            C07863() {
+        private class PostToHandler implements Runnable {
+            private final Runnable runnable;
+
+            PostToHandler(Runnable runnable) {
+                this.runnable = runnable;
             }
 
             public void run() {
-                Certificator.this.sfidaService.onCertificationComplete();
+                CertificateRunnable.this.delayHandler.post(this.runnable);
             }
         }
 
@@ -118,14 +124,19 @@ public class Certificator {
             switch (C07831.f34x9ecba9b7[this.executeCertificationState.ordinal()]) {
                 case C1391R.styleable.LoadingImageView_imageAspectRatio /*1*/:
                     onReceivedSecurityServiceNotify();
+                    return;
                 case C1391R.styleable.LoadingImageView_circleCrop /*2*/:
                     onReceivedDummyCertificationChallenge1();
+                    return;
                 case SfidaMessage.ACTIVITY_BYTE_LENGTH /*3*/:
                     onReceivedDummyCertificationChallenge2();
+                    return;
                 case Place.TYPE_AQUARIUM /*4*/:
                     onReceivedDummyCertificationChallenge3();
+                    return;
                 case Place.TYPE_ART_GALLERY /*5*/:
                     onReceivedCertificationComplete();
+                    return;
                 default:
             }
         }
@@ -134,72 +145,57 @@ public class Certificator {
             switch (C07831.f35xe9d8fa5[SfidaConstants.SFIDA_VERSION.ordinal()]) {
                 case C1391R.styleable.LoadingImageView_imageAspectRatio /*1*/:
                     Certificator.this.sfidaService.enableDeviceControlServiceNotify();
+                    return;
                 case C1391R.styleable.LoadingImageView_circleCrop /*2*/:
                 case SfidaMessage.ACTIVITY_BYTE_LENGTH /*3*/:
                 case Place.TYPE_AQUARIUM /*4*/:
                     if (!Certificator.this.sfidaService.enableSecurityServiceNotify(new C07841())) {
                         Certificator.this.sfidaService.disconnectBluetooth();
                     }
+                    return;
                 default:
             }
         }
 
         private void onReceivedDummyCertificationChallenge1() {
             Log.d(Certificator.this.TAG, "Dummy Certification Challenge 1");
-            if (Certificator.this.sfidaService.getIsReceivedNotifyCallback()) {
-                Certificator.this.sfidaService.sendCertificateMessage(SfidaMessage.getSecurityResponseForDebug());
-            } else {
-                retry();
-            }
+            Certificator.this.sfidaService.sendCertificateMessage(SfidaMessage.getSecurityResponseForDebug());
         }
 
         private void onReceivedDummyCertificationChallenge2() {
             Log.d(Certificator.this.TAG, "Dummy Certification Challenge 2");
-            if (Certificator.this.sfidaService.getIsReceivedWriteCallback()) {
-                switch (C07831.f35xe9d8fa5[SfidaConstants.SFIDA_VERSION.ordinal()]) {
-                    case C1391R.styleable.LoadingImageView_circleCrop /*2*/:
-                        new Handler().postDelayed(new C07852(), 500);
-                        return;
-                    case SfidaMessage.ACTIVITY_BYTE_LENGTH /*3*/:
-                    case Place.TYPE_AQUARIUM /*4*/:
-                        Certificator.this.sfidaService.sendCertificateMessage(SfidaMessage.getSecurityResponseForDebug2());
-                        return;
-                    default:
-                        return;
-                }
+            switch (C07831.f35xe9d8fa5[SfidaConstants.SFIDA_VERSION.ordinal()]) {
+                case C1391R.styleable.LoadingImageView_circleCrop /*2*/:
+                    Certificator.this.sfidaService.runAfterPendingOperations(new PostToHandler(new C07852()));
+                    return;
+                case SfidaMessage.ACTIVITY_BYTE_LENGTH /*3*/:
+                case Place.TYPE_AQUARIUM /*4*/:
+                    Certificator.this.sfidaService.sendCertificateMessage(SfidaMessage.getSecurityResponseForDebug2());
+                    return;
+                default:
+                    return;
             }
-            retry();
         }
 
         private void onReceivedDummyCertificationChallenge3() {
             Log.d(Certificator.this.TAG, "Dummy Certification Challenge 3");
-            if (Certificator.this.sfidaService.getIsReceivedWriteCallback()) {
-                switch (C07831.f35xe9d8fa5[SfidaConstants.SFIDA_VERSION.ordinal()]) {
-                    case SfidaMessage.ACTIVITY_BYTE_LENGTH /*3*/:
-                        Certificator.this.sfidaService.sendCertificateMessage(SfidaMessage.getSecurityResponseForDebug3());
-                        this.delayHandler.postDelayed(new C07863(), 500);
-                        return;
-                    case Place.TYPE_AQUARIUM /*4*/:
-                        Certificator.this.sfidaService.sendCertificateMessage(SfidaMessage.getSecurityResponseForDebug3());
-                        return;
-                    default:
-                        return;
-                }
+            switch (C07831.f35xe9d8fa5[SfidaConstants.SFIDA_VERSION.ordinal()]) {
+                case SfidaMessage.ACTIVITY_BYTE_LENGTH /*3*/:
+                    Certificator.this.sfidaService.sendCertificateMessage(SfidaMessage.getSecurityResponseForDebug3());
+                    Certificator.this.sfidaService.runAfterPendingOperations(new PostToHandler(new C07852()));
+                    return;
+                case Place.TYPE_AQUARIUM /*4*/:
+                    Certificator.this.sfidaService.sendCertificateMessage(SfidaMessage.getSecurityResponseForDebug3());
+                    return;
+                default:
+                    return;
             }
-            retry();
         }
 
         private void onReceivedCertificationComplete() {
             Log.d(Certificator.this.TAG, "Certification Complete!");
             Certificator.this.sfidaService.onCertificationComplete();
         }
-
-        private void retry() {
-            if (this.delayHandler != null) {
-                Log.d(Certificator.this.TAG, "Callback was not received. Retry after.");
-                this.delayHandler.postDelayed(this, 1000);
-            }
-        }
     }
 
     public Certificator(SfidaService sfidaService) {
@@ -220,7 +216,7 @@ public class Certificator {
 
     public void startCertification() {
         if (this.delayHandler != null) {
-            this.delayHandler.postDelayed(new CertificateRunnable(this.delayHandler, CertificationState.ENABLE_SECURITY_SERVICE_NOTIFY), 1000);
+            this.delayHandler.post(new CertificateRunnable(this.delayHandler, CertificationState.ENABLE_SECURITY_SERVICE_NOTIFY));
         }
     }
 
@@ -242,7 +238,7 @@ public class Certificator {
 
     private void executeCertificateSequence(CertificationState certificationState) {
         if (this.delayHandler != null) {
-            this.delayHandler.postDelayed(new CertificateRunnable(this.delayHandler, certificationState), 1000);
+            this.delayHandler.post(new CertificateRunnable(this.delayHandler, certificationState));
         }
     }
 }
@@ -0,0 +1,188 @@
+package com.nianticproject.holoholo.sfida.service;
+
+import android.annotation.TargetApi;
+import android.bluetooth.BluetoothGatt;
+import android.bluetooth.BluetoothGattCharacteristic;
+import android.bluetooth.BluetoothGattDescriptor;
+import android.util.Log;
+import com.nianticproject.holoholo.sfida.service.SfidaWatchDog.OnTimeoutListener;
+import java.util.LinkedList;
+import java.util.UUID;
+
+/**
+ * Serializes GATT operations. Android allows a single outstanding read or write per connection, so
+ * each operation is issued only once the callback for the previous one arrived through
+ * {@link SfidaGattCallback}, and the next one starts right away instead of after a fixed delay.
+ * An operation whose callback does not arrive within its timeout is dropped so the queue keeps
+ * moving.
+ */
+@TargetApi(18)
+public class GattOperationQueue {
+    private static final int DEFAULT_OPERATION_TIMEOUT = 2000;
+    private static final String TAG;
+    private Operation currentOperation;
+    private BluetoothGatt gatt;
+    private final LinkedList<Operation> operations;
+    private final SfidaService sfidaService;
+
+    private enum Type {
+        WRITE_CHARACTERISTIC,
+        READ_CHARACTERISTIC,
+        WRITE_DESCRIPTOR,
+        RUN
+    }
+
+    private class Operation implements Runnable {
+        final BluetoothGattCharacteristic characteristic;
+        final BluetoothGattDescriptor descriptor;
+        final int responseTimeout;
+        final Runnable task;
+        final OnTimeoutListener timeoutListener;
+        final Type type;
+        final byte[] value;
+
+        Operation(Type type, BluetoothGattCharacteristic characteristic, BluetoothGattDescriptor descriptor, byte[] value, OnTimeoutListener timeoutListener, int responseTimeout, Runnable task) {
+            this.type = type;
+            this.characteristic = characteristic;
+            this.descriptor = descriptor;
+            this.value = value;
+            this.timeoutListener = timeoutListener;
+            this.responseTimeout = responseTimeout;
+            this.task = task;
+        }
+
+        UUID getUuid() {
+            return this.descriptor != null ? this.descriptor.getCharacteristic().getUuid() : this.characteristic != null ? this.characteristic.getUuid() : null;
+        }
+
+        public void run() {
+            GattOperationQueue.this.onOperationTimeout(this);
+        }
+    }
+
+    static {
+        TAG = GattOperationQueue.class.getSimpleName();
+    }
+
+    public GattOperationQueue(SfidaService sfidaService) {
+        this.operations = new LinkedList();
+        this.sfidaService = sfidaService;
+    }
+
+    public synchronized void setGatt(BluetoothGatt gatt) {
+        if (this.gatt != gatt) {
+            clear();
+            this.gatt = gatt;
+        }
+    }
+
+    /**
+     * Queues a characteristic write. The value is captured now, so later writes to the same
+     * characteristic cannot overwrite it before it is sent. When a listener is given the
+     * SfidaWatchDog starts waiting for the device's answer once the write is issued; a
+     * non-positive timeout uses the watchdog's default.
+     */
+    public synchronized void writeCharacteristic(BluetoothGattCharacteristic characteristic, OnTimeoutListener listener, int responseTimeout) {
+        enqueue(new Operation(Type.WRITE_CHARACTERISTIC, characteristic, null, characteristic.getValue(), listener, responseTimeout, null));
+    }
+
+    public synchronized void readCharacteristic(BluetoothGattCharacteristic characteristic) {
+        enqueue(new Operation(Type.READ_CHARACTERISTIC, characteristic, null, null, null, 0, null));
+    }
+
+    public synchronized void writeDescriptor(BluetoothGattDescriptor descriptor, OnTimeoutListener listener, int responseTimeout) {
+        enqueue(new Operation(Type.WRITE_DESCRIPTOR, null, descriptor, descriptor.getValue(), listener, responseTimeout, null));
+    }
+
+    /**
+     * Runs the task once every operation queued before it has completed.
+     */
+    public synchronized void runAfterPending(Runnable task) {
+        enqueue(new Operation(Type.RUN, null, null, null, null, 0, task));
+    }
+
+    public synchronized void onCharacteristicWrite(BluetoothGattCharacteristic characteristic) {
+        onOperationComplete(Type.WRITE_CHARACTERISTIC, characteristic.getUuid());
+    }
+
+    public synchronized void onCharacteristicRead(BluetoothGattCharacteristic characteristic) {
+        onOperationComplete(Type.READ_CHARACTERISTIC, characteristic.getUuid());
+    }
+
+    public synchronized void onDescriptorWrite(BluetoothGattDescriptor descriptor) {
+        onOperationComplete(Type.WRITE_DESCRIPTOR, descriptor.getCharacteristic().getUuid());
+    }
+
+    public synchronized void clear() {
+        if (this.currentOperation != null) {
+            SfidaWatchDog.getInstance().stopOperationWatch(this.currentOperation);
+            this.currentOperation = null;
+        }
+        this.operations.clear();
+    }
+
+    private void enqueue(Operation operation) {
+        this.operations.add(operation);
+        if (this.currentOperation == null) {
+            next();
+        }
+    }
+
+    private void onOperationComplete(Type type, UUID uuid) {
+        Operation operation = this.currentOperation;
+        if (operation == null || operation.type != type || !uuid.equals(operation.getUuid())) {
+            Log.d(TAG, "Ignoring callback for " + type + " " + uuid);
+            return;
+        }
+        SfidaWatchDog.getInstance().stopOperationWatch(operation);
+        this.currentOperation = null;
+        next();
+    }
+
+    private synchronized void onOperationTimeout(Operation operation) {
+        if (this.currentOperation == operation) {
+            Log.e(TAG, "GATT operation timed out : " + operation.type + " " + operation.getUuid());
+            this.currentOperation = null;
+            next();
+        }
+    }
+
+    private void next() {
+        while (this.currentOperation == null && !this.operations.isEmpty()) {
+            Operation operation = (Operation) this.operations.removeFirst();
+            if (operation.type == Type.RUN) {
+                operation.task.run();
+            } else if (issue(operation)) {
+                this.currentOperation = operation;
+                SfidaWatchDog.getInstance().startOperationWatch(operation, DEFAULT_OPERATION_TIMEOUT);
+                if (operation.timeoutListener != null && operation.responseTimeout > 0) {
+                    SfidaWatchDog.getInstance().startWatch(operation.getUuid(), operation.timeoutListener, operation.responseTimeout);
+                } else if (operation.timeoutListener != null) {
+                    SfidaWatchDog.getInstance().startWatch(operation.getUuid(), operation.timeoutListener);
+                }
+            } else {
+                Log.e(TAG, "Failed to issue " + operation.type + " " + operation.getUuid());
+            }
+        }
+    }
+
+    private boolean issue(Operation operation) {
+        if (this.gatt == null) {
+            return false;
+        }
+        switch (operation.type) {
+            case WRITE_CHARACTERISTIC:
+                operation.characteristic.setValue(operation.value);
+                this.sfidaService.setIsReceivedWriteCallback(false);
+                return this.gatt.writeCharacteristic(operation.characteristic);
+            case READ_CHARACTERISTIC:
+                return this.gatt.readCharacteristic(operation.characteristic);
+            case WRITE_DESCRIPTOR:
+                operation.descriptor.setValue(operation.value);
+                this.sfidaService.setIsReceivedNotifyCallback(false);
+                return this.gatt.writeDescriptor(operation.descriptor);
+            default:
+                return false;
+        }
+    }
+}
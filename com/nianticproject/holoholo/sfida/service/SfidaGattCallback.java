@@ -41,6 +41,7 @@ public class SfidaGattCallback extends BluetoothGattCallback {
                 break;
         }
         this.sfidaService.setIsReceivedNotifyCallback(true);
+        this.sfidaService.getGattOperationQueue().onDescriptorWrite(descriptor);
     }
 
     public void onCharacteristicRead(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
@@ -49,6 +50,7 @@ public class SfidaGattCallback extends BluetoothGattCallback {
         } else {
             Log.e(TAG, "[BLE] onCharacteristicRead() Read failed.");
         }
+        this.sfidaService.getGattOperationQueue().onCharacteristicRead(characteristic);
     }
 
     public void onCharacteristicWrite(BluetoothGatt gatt, BluetoothGattCharacteristic characteristic, int status) {
@@ -56,7 +58,9 @@ public class SfidaGattCallback extends BluetoothGattCallback {
         this.sfidaService.setIsReceivedWriteCallback(true);
         if (status == BluetoothGattSupport.GATT_ERROR) {
             this.sfidaService.disconnectBluetooth();
+            return;
         }
+        this.sfidaService.getGattOperationQueue().onCharacteristicWrite(characteristic);
     }
 
     public void onConnectionStateChange(BluetoothGatt gatt, int status, int newState) {
@@ -13,6 +13,7 @@ import android.content.BroadcastReceiver;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.os.Binder;
+import android.os.Build.VERSION;
 import android.os.IBinder;
 import android.support.annotation.Nullable;
 import android.support.v4.widget.ExploreByTouchHelper;
@@ -50,6 +51,7 @@ public class SfidaService extends Service {
     private final BroadcastReceiver broadcastReceiver;
     private Certificator certificator;
     private volatile ConnectionState connectionState;
+    private final GattOperationQueue gattOperationQueue;
     private volatile boolean isReceivedNotifyCallback;
     private volatile boolean isReceivedWriteCallback;
     private SfidaButtonDetector sfidaButtonDetector;
@@ -259,6 +261,7 @@ public class SfidaService extends Service {
         this.binder = new LocalBinder();
         this.sfidaButtonDetector = new SfidaButtonDetector();
         this.certificator = new Certificator(this);
+        this.gattOperationQueue = new GattOperationQueue(this);
         this.broadcastReceiver = new C07871();
     }
 
@@ -304,6 +307,10 @@ public class SfidaService extends Service {
         return this.bluetoothGatt.getServices();
     }
 
+    public GattOperationQueue getGattOperationQueue() {
+        return this.gattOperationQueue;
+    }
+
     public boolean getIsReceivedNotifyCallback() {
         return this.isReceivedNotifyCallback;
     }
@@ -365,6 +372,7 @@ public class SfidaService extends Service {
                 return false;
             } else if (this.bluetoothDeviceAddress == null || !address.equals(this.bluetoothDeviceAddress) || this.bluetoothGatt == null) {
                 this.bluetoothGatt = device.connectGatt(this, false, new SfidaGattCallback(this));
+                this.gattOperationQueue.setGatt(this.bluetoothGatt);
                 Log.d(TAG, "Trying to create a new connection.");
                 this.bluetoothDeviceAddress = address;
             } else {
@@ -387,6 +395,7 @@ public class SfidaService extends Service {
     }
 
     public void closeBluetoothGatt() {
+        this.gattOperationQueue.setGatt(null);
         if (this.bluetoothGatt != null) {
             this.bluetoothGatt.close();
             this.bluetoothGatt = null;
@@ -399,31 +408,33 @@ public class SfidaService extends Service {
             return false;
         }
         this.bluetoothGatt.setCharacteristicNotification(characteristic, true);
-        return this.bluetoothGatt.readCharacteristic(characteristic);
+        this.gattOperationQueue.readCharacteristic(characteristic);
+        return true;
     }
 
     public boolean writeCharacteristic(BluetoothGattCharacteristic characteristic, OnTimeoutListener listener) {
-        Log.d(TAG, "writeCharacteristic()");
-        boolean succeed = this.bluetoothGatt.writeCharacteristic(characteristic);
-        if (succeed) {
-            this.isReceivedWriteCallback = false;
-            if (listener != null) {
-                SfidaWatchDog.getInstance().startWatch(characteristic.getUuid(), listener);
-            }
-        }
-        return succeed;
+        return writeCharacteristic(characteristic, listener, 0);
     }
 
+    /**
+     * Queues the write behind any GATT operation still in flight. The watchdog, when a listener is
+     * given, starts once the write is actually issued.
+     */
     public boolean writeCharacteristic(BluetoothGattCharacteristic characteristic, OnTimeoutListener listener, int timeout) {
         Log.d(TAG, "writeCharacteristic()");
-        boolean succeed = this.bluetoothGatt.writeCharacteristic(characteristic);
-        if (succeed) {
-            this.isReceivedWriteCallback = false;
-            if (listener != null) {
-                SfidaWatchDog.getInstance().startWatch(characteristic.getUuid(), listener, timeout);
-            }
+        if (this.bluetoothGatt == null) {
+            Log.w(TAG, "[BLE] BluetoothGatt not initialized");
+            return false;
         }
-        return succeed;
+        this.gattOperationQueue.writeCharacteristic(characteristic, listener, timeout);
+        return true;
+    }
+
+    /**
+     * Runs the task once every GATT operation queued so far has completed.
+     */
+    public void runAfterPendingOperations(Runnable task) {
+        this.gattOperationQueue.runAfterPending(task);
     }
 
     public BluetoothGattCharacteristic findCharacteristic(UUID serviceUuid, UUID characteristicUuid) {
@@ -448,17 +459,8 @@ public class SfidaService extends Service {
             BluetoothGattDescriptor descriptor = characteristic.getDescriptor(UUID.fromString(CLIENT_CHARACTERISTIC_CONFIG));
             descriptor.setValue(BluetoothGattDescriptor.ENABLE_NOTIFICATION_VALUE);
             Log.d(TAG, " permission : " + descriptor.getPermissions());
-            succeed = this.bluetoothGatt.writeDescriptor(descriptor);
-            if (succeed && listener != null) {
-                this.isReceivedNotifyCallback = false;
-                SfidaWatchDog.getInstance().startWatch(characteristic.getUuid(), listener);
-                return succeed;
-            } else if (succeed) {
-                return succeed;
-            } else {
-                Log.e(TAG, "failed writeDescriptor()");
-                return succeed;
-            }
+            this.gattOperationQueue.writeDescriptor(descriptor, listener, 0);
+            return succeed;
         } else if (succeed) {
             return succeed;
         } else {
@@ -631,6 +633,7 @@ public class SfidaService extends Service {
     }
 
     public void onConnectedWithGattServer(BluetoothGatt gatt) {
+        this.gattOperationQueue.setGatt(gatt);
         gatt.discoverServices();
         setConnectionState(ConnectionState.DISCOVERING_SERVICE);
         sendBroadcast(SfidaConstants.ACTION_GATT_CONNECTED);
@@ -649,17 +652,21 @@ public class SfidaService extends Service {
         switch (C07882.f36x11f28293[this.connectionState.ordinal()]) {
             case C1391R.styleable.LoadingImageView_imageAspectRatio /*1*/:
                 setConnectionState(ConnectionState.CERTIFICATION);
+                requestConnectionPriority(BluetoothGatt.CONNECTION_PRIORITY_HIGH);
                 startCertificateSequence();
                 sendBroadcast(SfidaConstants.ACTION_GATT_SERVICES_DISCOVERED);
+                return;
             case C1391R.styleable.LoadingImageView_circleCrop /*2*/:
                 setConnectionState(ConnectionState.NO_CONNECTION);
                 disconnectBluetooth();
+                return;
             default:
         }
     }
 
     public void onCertificationComplete() {
         setConnectionState(ConnectionState.CONNECTED);
+        requestConnectionPriority(BluetoothGatt.CONNECTION_PRIORITY_BALANCED);
         enableDeviceControlServiceNotify();
         sendBroadcast(SfidaConstants.ACTION_CERTIFICATE_COMPLETE);
         SfidaNotification.showSfidaNotification(getApplicationContext());
@@ -711,6 +718,17 @@ public class SfidaService extends Service {
         }
     }
 
+    /**
+     * The handshake is a chain of short request/response exchanges, so it runs at high connection
+     * priority (a short connection interval) and drops back to balanced once it is done.
+     */
+    @TargetApi(21)
+    private void requestConnectionPriority(int priority) {
+        if (VERSION.SDK_INT >= 21 && this.bluetoothGatt != null) {
+            this.bluetoothGatt.requestConnectionPriority(priority);
+        }
+    }
+
     private void startCertificateSequence() {
         this.certificator.startCertification();
     }
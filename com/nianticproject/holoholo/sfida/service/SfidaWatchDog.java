@@ -1,6 +1,7 @@
 package com.nianticproject.holoholo.sfida.service;
 
 import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 import java.util.UUID;
 
@@ -10,8 +11,10 @@ public class SfidaWatchDog {
     private static final String TAG;
     private static SfidaWatchDog instance;
     private OnTimeoutListener listener;
+    private Runnable operationTimeout;
     private int retryCount;
     private Handler watchDogTimer;
+    private Runnable watchRunnable;
     private UUID watchingUuid;
 
     public interface OnTimeoutListener {
@@ -30,9 +33,10 @@ public class SfidaWatchDog {
         public void run() {
             if (SfidaWatchDog.this.retryCount >= SfidaWatchDog.DEFAULT_RETRY_MAX) {
                 Log.d(SfidaWatchDog.TAG, "Reached retry limit.");
+                OnTimeoutListener listener = SfidaWatchDog.this.listener;
                 SfidaWatchDog.this.stopWatch();
-                if (SfidaWatchDog.this.listener != null) {
-                    SfidaWatchDog.this.listener.reachedRetryCountMax();
+                if (listener != null) {
+                    listener.reachedRetryCountMax();
                 }
             } else if (SfidaWatchDog.this.listener != null) {
                 SfidaWatchDog.this.listener.onTimeout(this.uuid);
@@ -49,22 +53,25 @@ public class SfidaWatchDog {
 
     public SfidaWatchDog() {
         this.retryCount = 0;
-        this.watchDogTimer = new Handler();
+        this.watchDogTimer = new Handler(Looper.getMainLooper());
     }
 
     public static SfidaWatchDog getInstance() {
         return instance;
     }
 
-    public void startWatch(UUID uuid, OnTimeoutListener listener, int timeout) {
+    public synchronized void startWatch(UUID uuid, OnTimeoutListener listener, int timeout) {
         Log.d(TAG, "startWatch()");
         this.listener = listener;
         if (!(this.watchingUuid == null || this.watchingUuid.equals(uuid))) {
             this.retryCount = 0;
         }
         this.watchingUuid = uuid;
-        this.watchDogTimer.removeCallbacksAndMessages(null);
-        this.watchDogTimer.postDelayed(new WatchDogRunnable(uuid), (long) timeout);
+        if (this.watchRunnable != null) {
+            this.watchDogTimer.removeCallbacks(this.watchRunnable);
+        }
+        this.watchRunnable = new WatchDogRunnable(uuid);
+        this.watchDogTimer.postDelayed(this.watchRunnable, (long) timeout);
     }
 
     public void startWatch(UUID uuid, OnTimeoutListener listener) {
@@ -72,11 +79,34 @@ public class SfidaWatchDog {
         startWatch(uuid, listener, DEFAULT_TIME_OUT);
     }
 
-    public void stopWatch() {
+    public synchronized void stopWatch() {
         Log.d(TAG, "stopWatch()");
         this.retryCount = 0;
         this.listener = null;
         this.watchingUuid = null;
-        this.watchDogTimer.removeCallbacksAndMessages(null);
+        if (this.watchRunnable != null) {
+            this.watchDogTimer.removeCallbacks(this.watchRunnable);
+            this.watchRunnable = null;
+        }
+    }
+
+    /**
+     * Runs {@code onTimeout} unless stopOperationWatch is called for it within {@code timeout}
+     * milliseconds. This bounds a single GATT operation and is independent of the response watch
+     * started by startWatch.
+     */
+    public synchronized void startOperationWatch(Runnable onTimeout, int timeout) {
+        if (this.operationTimeout != null) {
+            this.watchDogTimer.removeCallbacks(this.operationTimeout);
+        }
+        this.operationTimeout = onTimeout;
+        this.watchDogTimer.postDelayed(onTimeout, (long) timeout);
+    }
+
+    public synchronized void stopOperationWatch(Runnable onTimeout) {
+        this.watchDogTimer.removeCallbacks(onTimeout);
+        if (this.operationTimeout == onTimeout) {
+            this.operationTimeout = null;
+        }
     }
 }
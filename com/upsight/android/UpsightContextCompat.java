@@ -7,6 +7,7 @@ import com.upsight.android.persistence.UpsightDataStore;
 import com.upsight.android.persistence.UpsightDataStoreListener;
 import com.upsight.android.persistence.UpsightStorableSerializer;
 import com.upsight.android.persistence.UpsightSubscription;
+import java.util.Collection;
 import java.util.EnumSet;
 import java.util.Set;
 import rx.Observable;
@@ -46,6 +47,14 @@ class UpsightContextCompat extends UpsightContext {
             return new NoOpSubscription();
         }
 
+        public <T> UpsightSubscription storeAll(Collection<T> collection, UpsightDataStoreListener<Set<T>> upsightDataStoreListener) {
+            return new NoOpSubscription();
+        }
+
+        public <T> UpsightSubscription removeAll(Collection<T> collection, UpsightDataStoreListener<Set<T>> upsightDataStoreListener) {
+            return new NoOpSubscription();
+        }
+
         public <T> UpsightSubscription remove(Class<T> cls, Set<String> set, UpsightDataStoreListener<Set<T>> upsightDataStoreListener) {
             return new NoOpSubscription();
         }
@@ -81,6 +90,14 @@ class UpsightContextCompat extends UpsightContext {
             return Observable.empty();
         }
 
+        public <T> Observable<T> storeAllObservable(Collection<T> collection) {
+            return Observable.empty();
+        }
+
+        public <T> Observable<T> removeAllObservable(Collection<T> collection) {
+            return Observable.empty();
+        }
+
         public <T> Observable<T> removeObservable(T t) {
             return Observable.empty();
         }
@@ -47,6 +47,28 @@ class Analytics implements UpsightAnalyticsApi {
     private final SessionManager mSessionManager;
     private final UpsightContext mUpsight;
     private final UpsightUserAttributes mUserAttributes;
+    private volatile JsonNode mUserAttributesNode;
+
+    /**
+     * User attributes as of the last change. The node is shared by every event recorded until the
+     * next change and never modified, so its JSON is rendered once and reused.
+     */
+    private static final class UserAttributesNode extends ObjectNode {
+        private String mJson;
+
+        UserAttributesNode() {
+            super(JsonNodeFactory.instance);
+        }
+
+        UserAttributesNode freeze() {
+            this.mJson = super.toString();
+            return this;
+        }
+
+        public String toString() {
+            return this.mJson != null ? this.mJson : super.toString();
+        }
+    }
 
     static {
         LOG_TAG = Analytics.class.getSimpleName();
@@ -66,6 +88,7 @@ class Analytics implements UpsightAnalyticsApi {
         this.mUserAttributes = userAttributes;
         this.mDefaultUserAttributes = this.mUserAttributes.getDefault();
         this.mGooglePlayHelper = googlePlayHelper;
+        this.mUserAttributesNode = getAllAsJsonNode(this.mDefaultUserAttributes);
     }
 
     public void record(UpsightAnalyticsEvent event) {
@@ -85,13 +108,15 @@ class Analytics implements UpsightAnalyticsApi {
             this.mDataStore.store(record);
         } catch (JsonProcessingException e) {
             this.mLogger.m200e(LOG_TAG, e, "Failed to record event.", new Object[0]);
+        } catch (IllegalStateException e2) {
+            this.mLogger.m200e(LOG_TAG, e2, "Failed to record event.", new Object[0]);
         }
     }
 
     private ObjectNode toJsonNode(UpsightAnalyticsEvent event) throws JsonProcessingException {
         ObjectNode node = (ObjectNode) this.mObjectMapper.valueToTree(event);
         node.put(SEQUENCE_ID_FIELD_NAME, EventSequenceId.getAndIncrement(this.mUpsight));
-        node.put(USER_ATTRIBUTES_FIELD_NAME, getAllAsJsonNode(this.mDefaultUserAttributes));
+        node.put(USER_ATTRIBUTES_FIELD_NAME, this.mUserAttributesNode);
         return node;
     }
 
@@ -119,20 +144,24 @@ class Analytics implements UpsightAnalyticsApi {
         this.mLocationTracker.purge();
     }
 
-    public void putUserAttribute(String key, String value) {
+    public synchronized void putUserAttribute(String key, String value) {
         this.mUserAttributes.put(key, value);
+        this.mUserAttributesNode = getAllAsJsonNode(this.mDefaultUserAttributes);
     }
 
-    public void putUserAttribute(String key, Integer value) {
+    public synchronized void putUserAttribute(String key, Integer value) {
         this.mUserAttributes.put(key, value);
+        this.mUserAttributesNode = getAllAsJsonNode(this.mDefaultUserAttributes);
     }
 
-    public void putUserAttribute(String key, Boolean value) {
+    public synchronized void putUserAttribute(String key, Boolean value) {
         this.mUserAttributes.put(key, value);
+        this.mUserAttributesNode = getAllAsJsonNode(this.mDefaultUserAttributes);
     }
 
-    public void putUserAttribute(String key, Float value) {
+    public synchronized void putUserAttribute(String key, Float value) {
         this.mUserAttributes.put(key, value);
+        this.mUserAttributesNode = getAllAsJsonNode(this.mDefaultUserAttributes);
     }
 
     public String getStringUserAttribute(String key) {
@@ -160,7 +189,7 @@ class Analytics implements UpsightAnalyticsApi {
     }
 
     private JsonNode getAllAsJsonNode(Set<Entry> defaultUserAttributes) {
-        ObjectNode o = JsonNodeFactory.instance.objectNode();
+        UserAttributesNode o = new UserAttributesNode();
         for (Entry entry : defaultUserAttributes) {
             if (String.class.equals(entry.getType())) {
                 o.put(entry.getKey(), PreferencesHelper.getString(this.mUpsight, UpsightUserAttributes.USER_ATTRIBUTES_PREFIX + entry.getKey(), (String) entry.getDefaultValue()));
@@ -172,6 +201,6 @@ class Analytics implements UpsightAnalyticsApi {
                 o.put(entry.getKey(), PreferencesHelper.getFloat(this.mUpsight, UpsightUserAttributes.USER_ATTRIBUTES_PREFIX + entry.getKey(), ((Float) entry.getDefaultValue()).floatValue()));
             }
         }
-        return o;
+        return o.freeze();
     }
 }
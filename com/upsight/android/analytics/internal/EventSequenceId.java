@@ -2,20 +2,66 @@ package com.upsight.android.analytics.internal;
 
 import android.content.Context;
 import com.upsight.android.internal.util.PreferencesHelper;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Hands out event sequence ids from blocks reserved in the preferences.
+ *
+ * The preference holds the end of the last reserved block rather than the next id, so it is only
+ * written once per BLOCK_SIZE ids and every id below it may already have been used. A new process
+ * starts at that value; the unused rest of the previous block is skipped, never reissued. A block
+ * is only handed out once its end has been committed, so when the preferences cannot be written no
+ * ids are issued at all rather than ones a later process could repeat.
+ */
 public final class EventSequenceId {
+    private static final long BLOCK_SIZE = 1000;
     private static final long INITIAL_SEQUENCE_ID = 1;
+    private static final int MAX_COMMIT_ATTEMPTS = 3;
     private static final String PREFERENCES_KEY_SEQ_ID = "seq_id";
+    private static volatile long sBlockEnd;
+    private static boolean sLoaded;
+    private static final AtomicLong sNextId = new AtomicLong();
 
     private EventSequenceId() {
     }
 
-    public static synchronized long getAndIncrement(Context context) {
-        long currentId;
-        synchronized (EventSequenceId.class) {
-            currentId = PreferencesHelper.getLong(context, PREFERENCES_KEY_SEQ_ID, INITIAL_SEQUENCE_ID);
-            PreferencesHelper.putLong(context, PREFERENCES_KEY_SEQ_ID, currentId + INITIAL_SEQUENCE_ID);
+    /**
+     * Returns the next sequence id.
+     *
+     * @throws IllegalStateException if a new block is needed and could not be committed.
+     */
+    public static long getAndIncrement(Context context) {
+        while (true) {
+            long blockEnd = sBlockEnd;
+            long id = sNextId.get();
+            if (id >= blockEnd) {
+                if (!reserveBlock(context)) {
+                    throw new IllegalStateException("Unable to reserve event sequence ids.");
+                }
+            } else if (sNextId.compareAndSet(id, id + 1)) {
+                return id;
+            }
         }
-        return currentId;
+    }
+
+    private static synchronized boolean reserveBlock(Context context) {
+        if (!sLoaded) {
+            long start = PreferencesHelper.getLong(context, PREFERENCES_KEY_SEQ_ID, INITIAL_SEQUENCE_ID);
+            sNextId.set(start);
+            sBlockEnd = start;
+            sLoaded = true;
+        }
+        long next = sNextId.get();
+        if (next < sBlockEnd) {
+            return true;
+        }
+        long blockEnd = next + BLOCK_SIZE;
+        for (int i = 0; i < MAX_COMMIT_ATTEMPTS; i++) {
+            if (PreferencesHelper.commitLong(context, PREFERENCES_KEY_SEQ_ID, blockEnd)) {
+                sBlockEnd = blockEnd;
+                return true;
+            }
+        }
+        return false;
     }
 }
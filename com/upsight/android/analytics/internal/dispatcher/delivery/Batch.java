@@ -6,6 +6,7 @@ import java.util.HashSet;
 import java.util.Set;
 
 class Batch {
+    private long mBytes;
     private int mCapacityLeft;
     private Set<Packet> mPackets;
 
@@ -21,6 +22,45 @@ class Batch {
     public void addPacket(Packet packet) {
         this.mPackets.add(packet);
         this.mCapacityLeft--;
+        String source = packet.getRecord().getSource();
+        if (source != null) {
+            this.mBytes += utf8Length(source);
+        }
+    }
+
+    /**
+     * UTF-8 encoded length of {@code s}, counted without encoding it.
+     */
+    private static long utf8Length(String s) {
+        long bytes = 0;
+        int length = s.length();
+        int i = 0;
+        while (i < length) {
+            char c = s.charAt(i);
+            if (c < '\u0080') {
+                bytes++;
+            } else if (c < '\u0800') {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(s.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+            i++;
+        }
+        return bytes;
+    }
+
+    /**
+     * UTF-8 encoded size of the events in this batch, used to size batches to the link.
+     */
+    public long getBytes() {
+        return this.mBytes;
+    }
+
+    public int size() {
+        return this.mPackets.size();
     }
 
     public Set<Packet> getPackets() {
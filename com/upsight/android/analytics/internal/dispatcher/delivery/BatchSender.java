@@ -9,29 +9,52 @@ import com.upsight.android.analytics.internal.dispatcher.routing.Packet;
 import com.upsight.android.analytics.internal.dispatcher.schema.Schema;
 import com.upsight.android.analytics.internal.session.Clock;
 import com.upsight.android.internal.util.NetworkHelper;
+import com.upsight.android.internal.util.PreferencesHelper;
 import com.upsight.android.logger.UpsightLogger;
 import java.io.IOException;
 import java.util.Collection;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import rx.Scheduler;
 import rx.functions.Action0;
 
 public class BatchSender {
+    private static final long INITIAL_BATCH_BYTES = 65536;
+    private static final long MAX_BACKOFF_MS = 900000;
+    private static final long MAX_BATCH_BYTES = 524288;
+    private static final int MAX_TRACKED_RECORDS = 1000;
+    private static final long MIN_BATCH_BYTES = 8192;
+    private static final String PREF_FAILURE_STREAK = "upsight.delivery.%s.failure_streak";
+    private static final String PREF_NEXT_ATTEMPT = "upsight.delivery.%s.next_attempt_ms";
+    private static final String PREF_TRIES_USED = "upsight.delivery.%s.tries.";
+    private static final long TARGET_SEND_TIME_MS = 5000;
     private Scheduler mBatchSendExecutor;
     private final Clock mClock;
     private Config mConfig;
     private OnDeliveryListener mDeliveryListener;
     private UpsightEndpoint mEndpoint;
+    private int mFailureStreak;
+    private final String mFailureStreakKey;
+    private final Random mJitter;
     private ReentrantLock mListenersLock;
     private final UpsightLogger mLogger;
+    private final DeliveryMetrics mMetrics;
+    private long mNextAttemptMs;
+    private final String mNextAttemptKey;
     private ObjectMapper mObjectMapper;
     private OnResponseListener mResponseListener;
     private ResponseParser mResponseParser;
     private Scheduler mRetryExecutor;
-    private ConcurrentMap<Request, Integer> mTryCounts;
+    private long mTargetBatchBytes;
+    private double mThroughputBytesPerMs;
+    private final Map<String, Integer> mTriesUsed;
+    private final Map<String, Integer> mTriesUsedChanges;
+    private final String mTriesUsedPrefix;
     private UpsightContext mUpsight;
 
     /* renamed from: com.upsight.android.analytics.internal.dispatcher.delivery.BatchSender.1 */
@@ -70,8 +93,11 @@ public class BatchSender {
 
         public void run() {
             if (NetworkHelper.isConnected(BatchSender.this.mUpsight)) {
+                long startMs = BatchSender.this.mClock.currentTimeMillis();
                 try {
-                    Response resp = BatchSender.this.mEndpoint.send(new UpsightRequest(BatchSender.this.mUpsight, this.mRequest, BatchSender.this.mObjectMapper, BatchSender.this.mClock, BatchSender.this.mLogger));
+                    BatchSender.this.mMetrics.onBatchSent(this.mRequest.batch.size(), this.mRequest.batch.getBytes());
+                    Response resp = BatchSender.this.mEndpoint.send(new UpsightRequest(BatchSender.this.mUpsight, this.mRequest, BatchSender.this.mClock));
+                    BatchSender.this.onRoundTrip(this.mRequest.batch, BatchSender.this.mClock.currentTimeMillis() - startMs, resp.isOk());
                     ResponseParser.Response response = null;
                     if (!TextUtils.isEmpty(resp.body)) {
                         response = BatchSender.this.mResponseParser.parse(resp.body);
@@ -85,6 +111,7 @@ public class BatchSender {
                     BatchSender.this.sendFailed(this.mRequest, FailReason.SERVER, response != null ? response.error : null);
                     return;
                 } catch (IOException e) {
+                    BatchSender.this.onRoundTrip(this.mRequest.batch, BatchSender.this.mClock.currentTimeMillis() - startMs, false);
                     BatchSender.this.sendFailed(this.mRequest, FailReason.NETWORK, NETWORK_ERROR);
                     return;
                 }
@@ -131,8 +158,10 @@ public class BatchSender {
     public static final class Request {
         public final Batch batch;
         public final Schema schema;
+        volatile int triesLeft;
 
         public Request(Batch batch, Schema schema) {
+            this.triesLeft = -1;
             this.batch = batch;
             this.schema = schema;
         }
@@ -150,18 +179,37 @@ public class BatchSender {
         }
     }
 
-    BatchSender(UpsightContext upsight, Config config, Scheduler retryExecutor, Scheduler sendExecutor, UpsightEndpoint endpoint, ResponseParser responseParser, ObjectMapper objectMapper, Clock clock, UpsightLogger logger) {
+    BatchSender(UpsightContext upsight, String name, Config config, Scheduler retryExecutor, Scheduler sendExecutor, UpsightEndpoint endpoint, ResponseParser responseParser, ObjectMapper objectMapper, Clock clock, UpsightLogger logger) {
         this.mUpsight = upsight;
         this.mEndpoint = endpoint;
         this.mConfig = config;
         this.mRetryExecutor = retryExecutor;
         this.mObjectMapper = objectMapper;
         this.mBatchSendExecutor = sendExecutor;
-        this.mTryCounts = new ConcurrentHashMap();
         this.mListenersLock = new ReentrantLock();
         this.mResponseParser = responseParser;
         this.mClock = clock;
         this.mLogger = logger;
+        this.mMetrics = new DeliveryMetrics();
+        this.mJitter = new Random();
+        this.mTargetBatchBytes = INITIAL_BATCH_BYTES;
+        this.mMetrics.onTargetBatchBytes(INITIAL_BATCH_BYTES);
+        this.mFailureStreakKey = String.format(PREF_FAILURE_STREAK, new Object[]{name});
+        this.mNextAttemptKey = String.format(PREF_NEXT_ATTEMPT, new Object[]{name});
+        this.mFailureStreak = PreferencesHelper.getInt(upsight, this.mFailureStreakKey, 0);
+        this.mNextAttemptMs = PreferencesHelper.getLong(upsight, this.mNextAttemptKey, 0);
+        this.mTriesUsedPrefix = String.format(PREF_TRIES_USED, new Object[]{name});
+        this.mTriesUsed = new LinkedHashMap();
+        this.mTriesUsedChanges = new HashMap();
+        loadTriesUsed();
+    }
+
+    public DeliveryMetrics getMetrics() {
+        return this.mMetrics;
+    }
+
+    synchronized long getTargetBatchBytes() {
+        return this.mTargetBatchBytes;
     }
 
     public void setDeliveryListener(OnDeliveryListener deliveryListener) {
@@ -210,12 +258,161 @@ public class BatchSender {
         }
     }
 
+    /**
+     * Sends the request now, or once the current backoff window has passed. The window is shared
+     * by every request on this queue, so retries after an outage are spread out instead of all
+     * firing together.
+     */
     public void submitRequest(Request request) {
-        this.mBatchSendExecutor.createWorker().schedule(new C08811(request));
+        long delayMs = getBackoffDelayMs();
+        if (delayMs > 0) {
+            this.mBatchSendExecutor.createWorker().schedule(new C08811(request), delayMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.mBatchSendExecutor.createWorker().schedule(new C08811(request));
+        }
+    }
+
+    private synchronized long getBackoffDelayMs() {
+        long delayMs = this.mNextAttemptMs - this.mClock.currentTimeMillis();
+        if (delayMs <= 0) {
+            return 0;
+        }
+        return Math.min(delayMs, MAX_BACKOFF_MS);
+    }
+
+    /**
+     * Feeds a finished round trip into the throughput estimate that sizes batches: the target is
+     * what the link moved in {@link #TARGET_SEND_TIME_MS} recently, and a failed send halves it.
+     * Batches under {@link #MIN_BATCH_BYTES} are skipped, since connection setup dominates them.
+     */
+    private synchronized void onRoundTrip(Batch batch, long latencyMs, boolean success) {
+        this.mMetrics.onSendCompleted(latencyMs, success);
+        if (success) {
+            if (batch.getBytes() >= MIN_BATCH_BYTES) {
+                double sample = ((double) batch.getBytes()) / ((double) Math.max(1, latencyMs));
+                this.mThroughputBytesPerMs = this.mThroughputBytesPerMs == 0.0d ? sample : (this.mThroughputBytesPerMs * 0.75d) + (sample * 0.25d);
+                this.mTargetBatchBytes = (long) (this.mThroughputBytesPerMs * ((double) TARGET_SEND_TIME_MS));
+            }
+        } else {
+            this.mTargetBatchBytes /= 2;
+        }
+        this.mTargetBatchBytes = Math.max(MIN_BATCH_BYTES, Math.min(MAX_BATCH_BYTES, this.mTargetBatchBytes));
+        this.mMetrics.onTargetBatchBytes(this.mTargetBatchBytes);
+    }
+
+    private synchronized void resetBackoff() {
+        if (this.mFailureStreak != 0 || this.mNextAttemptMs != 0) {
+            this.mFailureStreak = 0;
+            this.mNextAttemptMs = 0;
+            PreferencesHelper.putInt(this.mUpsight, this.mFailureStreakKey, 0);
+            PreferencesHelper.putLong(this.mUpsight, this.mNextAttemptKey, 0);
+            flushTriesUsed();
+        }
+    }
+
+    /**
+     * Exponential backoff from the configured retry interval with "equal jitter": half the delay
+     * is fixed and the other half random, so senders that failed together do not retry together.
+     * A failure inside a window another request already opened joins it rather than doubling again.
+     */
+    private synchronized long extendBackoff() {
+        long baseMs = TimeUnit.SECONDS.toMillis((long) this.mConfig.retryInterval);
+        long nowMs = this.mClock.currentTimeMillis();
+        if (nowMs < this.mNextAttemptMs) {
+            return (this.mNextAttemptMs - nowMs) + ((long) (this.mJitter.nextDouble() * ((double) baseMs)));
+        }
+        int shift = Math.min(this.mFailureStreak, 20);
+        long delayMs = Math.min(MAX_BACKOFF_MS, baseMs << shift);
+        long half = delayMs / 2;
+        delayMs = half + ((long) (this.mJitter.nextDouble() * ((double) (half + 1))));
+        this.mFailureStreak++;
+        this.mNextAttemptMs = nowMs + delayMs;
+        PreferencesHelper.putInt(this.mUpsight, this.mFailureStreakKey, this.mFailureStreak);
+        PreferencesHelper.putLong(this.mUpsight, this.mNextAttemptKey, this.mNextAttemptMs);
+        flushTriesUsed();
+        return delayMs;
+    }
+
+    /**
+     * Reads the tries persisted by earlier processes, one preference per record.
+     */
+    private void loadTriesUsed() {
+        for (Map.Entry<String, ?> entry : PreferencesHelper.getAll(this.mUpsight, this.mTriesUsedPrefix).entrySet()) {
+            if (entry.getValue() instanceof Integer) {
+                this.mTriesUsed.put(((String) entry.getKey()).substring(this.mTriesUsedPrefix.length()), (Integer) entry.getValue());
+            }
+        }
+        trimTriesUsed();
+    }
+
+    private void trimTriesUsed() {
+        Iterator<String> eldest = this.mTriesUsed.keySet().iterator();
+        while (this.mTriesUsed.size() > MAX_TRACKED_RECORDS && eldest.hasNext()) {
+            this.mTriesUsedChanges.put(eldest.next(), null);
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Writes the tries changed since the last flush in one edit. Called when a backoff window
+     * opens and when delivery recovers, so the cost follows the number of changed records and is
+     * paid at most once per window.
+     */
+    private void flushTriesUsed() {
+        if (!this.mTriesUsedChanges.isEmpty()) {
+            Map<String, Integer> values = new HashMap();
+            for (Map.Entry<String, Integer> entry : this.mTriesUsedChanges.entrySet()) {
+                values.put(this.mTriesUsedPrefix + ((String) entry.getKey()), entry.getValue());
+            }
+            this.mTriesUsedChanges.clear();
+            PreferencesHelper.putInts(this.mUpsight, values);
+        }
+    }
+
+    /**
+     * Tries already spent on the batch's events, including by earlier processes. Batches are
+     * rebuilt after a restart, so the count is kept per record and a batch takes its maximum.
+     */
+    private synchronized int getTriesUsed(Batch batch) {
+        int triesUsed = 0;
+        if (!this.mTriesUsed.isEmpty()) {
+            for (Packet packet : batch.getPackets()) {
+                Integer tries = (Integer) this.mTriesUsed.get(packet.getRecord().getID());
+                if (tries != null && tries.intValue() > triesUsed) {
+                    triesUsed = tries.intValue();
+                }
+            }
+        }
+        return triesUsed;
+    }
+
+    private synchronized void putTriesUsed(Batch batch, int triesUsed) {
+        for (Packet packet : batch.getPackets()) {
+            String id = packet.getRecord().getID();
+            if (id != null) {
+                this.mTriesUsed.remove(id);
+                this.mTriesUsed.put(id, Integer.valueOf(triesUsed));
+                this.mTriesUsedChanges.put(id, Integer.valueOf(triesUsed));
+            }
+        }
+        trimTriesUsed();
+    }
+
+    private synchronized void clearTriesUsed(Batch batch) {
+        if (!this.mTriesUsed.isEmpty()) {
+            for (Packet packet : batch.getPackets()) {
+                String id = packet.getRecord().getID();
+                if (id != null && this.mTriesUsed.remove(id) != null) {
+                    this.mTriesUsedChanges.put(id, null);
+                }
+            }
+        }
     }
 
     private void sendSucceeded(Request request) {
-        this.mTryCounts.remove(request);
+        clearTriesUsed(request.batch);
+        resetBackoff();
+        this.mMetrics.onPacketsDone(request.batch.size());
         for (Packet packet : request.batch.getPackets()) {
             packet.markDelivered();
         }
@@ -223,19 +420,21 @@ public class BatchSender {
     }
 
     private void sendFailed(Request request, FailReason failReason, String errorString) {
-        Integer tryCount = (Integer) this.mTryCounts.get(request);
-        if (tryCount == null) {
-            tryCount = Integer.valueOf(this.mConfig.maxRetryCount);
+        int triesLeft = request.triesLeft;
+        if (triesLeft < 0) {
+            triesLeft = Math.max(0, this.mConfig.maxRetryCount - getTriesUsed(request.batch));
         }
-        if (tryCount.intValue() > 0) {
+        if (triesLeft > 0) {
             if (failReason != FailReason.NETWORK || this.mConfig.countNetworkFail) {
-                tryCount = Integer.valueOf(tryCount.intValue() - 1);
+                triesLeft--;
+                putTriesUsed(request.batch, this.mConfig.maxRetryCount - triesLeft);
             }
-            this.mTryCounts.put(request, tryCount);
-            this.mRetryExecutor.createWorker().schedule(new C08822(request), (long) this.mConfig.retryInterval, TimeUnit.SECONDS);
+            request.triesLeft = triesLeft;
+            this.mRetryExecutor.createWorker().schedule(new C08822(request), extendBackoff(), TimeUnit.MILLISECONDS);
             return;
         }
-        this.mTryCounts.remove(request);
+        clearTriesUsed(request.batch);
+        this.mMetrics.onPacketsDone(request.batch.size());
         for (Packet packet : request.batch.getPackets()) {
             packet.failAndRoute(errorString);
         }
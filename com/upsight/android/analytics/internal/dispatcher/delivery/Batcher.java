@@ -76,7 +76,8 @@ public class Batcher {
             }
         }
         this.mCurrentBatch.addPacket(packet);
-        if (this.mCurrentBatch.capacityLeft() == 0) {
+        this.mBatchSender.getMetrics().onPacketQueued();
+        if (this.mCurrentBatch.capacityLeft() == 0 || this.mCurrentBatch.getBytes() >= this.mBatchSender.getTargetBatchBytes()) {
             sendCurrentBatch();
         }
     }
@@ -6,6 +6,7 @@ import com.upsight.android.Upsight;
 import com.upsight.android.UpsightContext;
 import com.upsight.android.logger.UpsightLogger;
 import java.io.IOException;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
@@ -15,17 +16,38 @@ import java.security.Signature;
 import java.security.SignatureException;
 import java.security.spec.InvalidKeySpecException;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Verifies response signatures without serializing callers: the public key is parsed once and
+ * each verification borrows an initialized {@link Signature} from a small pool, creating one if
+ * all are busy, so concurrent senders verify in parallel.
+ */
 class BouncySignatureVerifier implements SignatureVerifier {
     private static final String CHARSET_NAME = "UTF-8";
     private static final String CRYPTO_ALGORITHM_KEY = "RSA";
     private static final String CRYPTO_ALGORITHM_SIGNATURE = "SHA512WITHRSA";
     private static final String CRYPTO_PROVIDER = "BC";
+    private static final int MAX_POOLED_SIGNERS = 8;
+    private final AtomicLong mFailedVerifications;
     private UpsightLogger mLogger;
-    private Signature mSigner;
+    private final AtomicLong mMaxLatencyNanos;
+    private final AtomicInteger mPooledSigners;
+    private PublicKey mPublicKey;
+    private final ConcurrentLinkedQueue<Signature> mSigners;
+    private final AtomicLong mTotalLatencyNanos;
+    private final AtomicLong mVerifications;
 
     BouncySignatureVerifier(UpsightContext upsight) {
         Exception e;
+        this.mSigners = new ConcurrentLinkedQueue();
+        this.mPooledSigners = new AtomicInteger();
+        this.mVerifications = new AtomicLong();
+        this.mFailedVerifications = new AtomicLong();
+        this.mTotalLatencyNanos = new AtomicLong();
+        this.mMaxLatencyNanos = new AtomicLong();
         this.mLogger = upsight.getLogger();
         String publicKeyString = upsight.getPublicKey();
         try {
@@ -34,9 +56,8 @@ class BouncySignatureVerifier implements SignatureVerifier {
                 return;
             }
             PublicKey publicKey = KeyFactory.getInstance(CRYPTO_ALGORITHM_KEY, CRYPTO_PROVIDER).generatePublic(new X509EncodedKeySpec(Base64.decode(publicKeyString.getBytes(CHARSET_NAME), 0)));
-            Signature signer = Signature.getInstance(CRYPTO_ALGORITHM_SIGNATURE, CRYPTO_PROVIDER);
-            signer.initVerify(publicKey);
-            this.mSigner = signer;
+            release(newSigner(publicKey));
+            this.mPublicKey = publicKey;
             this.mLogger.m197d(Upsight.LOG_TAG, "Public key: " + publicKey, new Object[0]);
         } catch (IOException e2) {
             e = e2;
@@ -56,20 +77,96 @@ class BouncySignatureVerifier implements SignatureVerifier {
         }
     }
 
-    public synchronized boolean verify(byte[] message, byte[] signature) {
-        boolean isVerified;
-        isVerified = false;
-        if (this.mSigner != null) {
+    public boolean verify(byte[] message, byte[] signature) {
+        return verify(message, 0, message.length, null, signature);
+    }
+
+    public boolean verify(byte[] message, int offset, int length, byte[] suffix, byte[] signature) {
+        boolean isVerified = false;
+        long startNanos = System.nanoTime();
+        Signature signer = acquire();
+        if (signer != null) {
             try {
-                this.mSigner.update(message);
-                isVerified = this.mSigner.verify(signature);
+                signer.update(message, offset, length);
+                if (suffix != null) {
+                    signer.update(suffix);
+                }
+                isVerified = signer.verify(signature);
+                release(signer);
             } catch (SignatureException e) {
                 this.mLogger.m200e(Upsight.LOG_TAG, e, "Failed to verify signature " + BouncySignatureVerifier.class.getSimpleName(), new Object[0]);
             }
+            recordLatency(System.nanoTime() - startNanos);
         }
         if (!isVerified) {
+            this.mFailedVerifications.incrementAndGet();
             this.mLogger.m199e(Upsight.LOG_TAG, "Failed to verify signature. Please check your public key.", new Object[0]);
         }
         return isVerified;
     }
+
+    public long getVerificationCount() {
+        return this.mVerifications.get();
+    }
+
+    public long getFailedVerificationCount() {
+        return this.mFailedVerifications.get();
+    }
+
+    public long getAverageLatencyNanos() {
+        long count = this.mVerifications.get();
+        return count == 0 ? 0 : this.mTotalLatencyNanos.get() / count;
+    }
+
+    public long getMaxLatencyNanos() {
+        return this.mMaxLatencyNanos.get();
+    }
+
+    private void recordLatency(long nanos) {
+        this.mVerifications.incrementAndGet();
+        this.mTotalLatencyNanos.addAndGet(nanos);
+        long max;
+        do {
+            max = this.mMaxLatencyNanos.get();
+            if (nanos <= max) {
+                return;
+            }
+        } while (!this.mMaxLatencyNanos.compareAndSet(max, nanos));
+    }
+
+    /**
+     * Returns an idle signer, or a fresh one when every pooled signer is in use. A signer that
+     * threw mid-verification is simply not released, since its state is then undefined.
+     */
+    private Signature acquire() {
+        Signature signer = (Signature) this.mSigners.poll();
+        if (signer != null) {
+            this.mPooledSigners.decrementAndGet();
+            return signer;
+        }
+        PublicKey publicKey = this.mPublicKey;
+        if (publicKey == null) {
+            return null;
+        }
+        try {
+            return newSigner(publicKey);
+        } catch (GeneralSecurityException e) {
+            this.mLogger.m200e(Upsight.LOG_TAG, e, "Failed to create signer " + BouncySignatureVerifier.class.getSimpleName(), new Object[0]);
+            return null;
+        }
+    }
+
+    private void release(Signature signer) {
+        if (this.mPooledSigners.incrementAndGet() <= MAX_POOLED_SIGNERS) {
+            this.mSigners.offer(signer);
+        } else {
+            this.mPooledSigners.decrementAndGet();
+        }
+    }
+
+    private static Signature newSigner(PublicKey publicKey) throws NoSuchAlgorithmException, NoSuchProviderException, InvalidKeyException {
+        Signature signer = Signature.getInstance(CRYPTO_ALGORITHM_SIGNATURE, CRYPTO_PROVIDER);
+        signer.initVerify(publicKey);
+        return signer;
+    }
 }
@@ -0,0 +1,93 @@
+package com.upsight.android.analytics.internal.dispatcher.delivery;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Live counters for one delivery queue. Everything is updated lock-free by the batcher and the
+ * sender and may be read from any thread.
+ */
+public final class DeliveryMetrics {
+    private final AtomicLong mAverageSendLatencyMs;
+    private final AtomicInteger mFailedSends;
+    private final AtomicLong mLastBatchBytes;
+    private final AtomicInteger mLastBatchSize;
+    private final AtomicLong mLastSendLatencyMs;
+    private final AtomicInteger mQueueDepth;
+    private final AtomicInteger mSuccessfulSends;
+    private final AtomicLong mTargetBatchBytes;
+
+    DeliveryMetrics() {
+        this.mAverageSendLatencyMs = new AtomicLong();
+        this.mFailedSends = new AtomicInteger();
+        this.mLastBatchBytes = new AtomicLong();
+        this.mLastBatchSize = new AtomicInteger();
+        this.mLastSendLatencyMs = new AtomicLong();
+        this.mQueueDepth = new AtomicInteger();
+        this.mSuccessfulSends = new AtomicInteger();
+        this.mTargetBatchBytes = new AtomicLong();
+    }
+
+    /**
+     * Packets accepted by the queue that have been neither delivered nor given up on.
+     */
+    public int getQueueDepth() {
+        return this.mQueueDepth.get();
+    }
+
+    public int getLastBatchSize() {
+        return this.mLastBatchSize.get();
+    }
+
+    public long getLastBatchBytes() {
+        return this.mLastBatchBytes.get();
+    }
+
+    public long getTargetBatchBytes() {
+        return this.mTargetBatchBytes.get();
+    }
+
+    public long getLastSendLatencyMs() {
+        return this.mLastSendLatencyMs.get();
+    }
+
+    public long getAverageSendLatencyMs() {
+        return this.mAverageSendLatencyMs.get();
+    }
+
+    public int getSuccessfulSends() {
+        return this.mSuccessfulSends.get();
+    }
+
+    public int getFailedSends() {
+        return this.mFailedSends.get();
+    }
+
+    void onPacketQueued() {
+        this.mQueueDepth.incrementAndGet();
+    }
+
+    void onPacketsDone(int count) {
+        this.mQueueDepth.addAndGet(-count);
+    }
+
+    void onBatchSent(int size, long bytes) {
+        this.mLastBatchSize.set(size);
+        this.mLastBatchBytes.set(bytes);
+    }
+
+    void onTargetBatchBytes(long bytes) {
+        this.mTargetBatchBytes.set(bytes);
+    }
+
+    void onSendCompleted(long latencyMs, boolean success) {
+        this.mLastSendLatencyMs.set(latencyMs);
+        long average = this.mAverageSendLatencyMs.get();
+        this.mAverageSendLatencyMs.set(average == 0 ? latencyMs : ((3 * average) + latencyMs) / 4);
+        if (success) {
+            this.mSuccessfulSends.incrementAndGet();
+        } else {
+            this.mFailedSends.incrementAndGet();
+        }
+    }
+}
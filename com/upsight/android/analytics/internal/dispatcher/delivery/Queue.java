@@ -54,6 +54,10 @@ public class Queue {
         return this.mName;
     }
 
+    public DeliveryMetrics getMetrics() {
+        return this.mBatchSender != null ? this.mBatchSender.getMetrics() : null;
+    }
+
     public void setOnDeliveryListener(OnDeliveryListener listener) {
         this.mBatchSender.setDeliveryListener(listener);
     }
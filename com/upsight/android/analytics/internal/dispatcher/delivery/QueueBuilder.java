@@ -7,6 +7,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.upsight.android.UpsightContext;
 import com.upsight.android.analytics.internal.dispatcher.delivery.Batcher.Config;
 import com.upsight.android.analytics.internal.dispatcher.delivery.Batcher.Factory;
+import com.upsight.android.analytics.internal.dispatcher.delivery.UpsightEndpoint.Transport;
 import com.upsight.android.analytics.internal.dispatcher.schema.Schema;
 import com.upsight.android.analytics.internal.dispatcher.util.Selector;
 import com.upsight.android.analytics.internal.session.Clock;
@@ -64,7 +65,7 @@ public class QueueBuilder {
     }
 
     public Queue build(String name, QueueConfig config, Selector<Schema> schemaSelectorByName, Selector<Schema> schemaSelectorByType) {
-        return new Queue(name, schemaSelectorByName, schemaSelectorByType, new BatcherFactory(config.getBatcherConfig()), new BatchSender(this.mUpsight, config.getBatchSenderConfig(), this.mRetryExecutor, this.mSendExecutor, new UpsightEndpoint(prepareEndpoint(config.getEndpointAddress()), this.mSignatureVerifier, this.mObjectMapper, this.mLogger), (ResponseParser) this.mResponseParserProvider.get(), this.mObjectMapper, this.mClock, this.mLogger));
+        return new Queue(name, schemaSelectorByName, schemaSelectorByType, new BatcherFactory(config.getBatcherConfig()), new BatchSender(this.mUpsight, name, config.getBatchSenderConfig(), this.mRetryExecutor, this.mSendExecutor, new UpsightEndpoint(prepareEndpoint(config.getEndpointAddress()), this.mSignatureVerifier, this.mObjectMapper, this.mLogger, Transport.KEEP_ALIVE), (ResponseParser) this.mResponseParserProvider.get(), this.mObjectMapper, this.mClock, this.mLogger));
     }
 
     String prepareEndpoint(String baseUrl) {
@@ -1,35 +1,47 @@
 package com.upsight.android.analytics.internal.dispatcher.delivery;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize.Inclusion;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.upsight.android.analytics.internal.DataStoreRecord;
-import com.upsight.android.logger.UpsightLogger;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 class Session {
     private Set<DataStoreRecord> mEvents;
     private long mInstallTs;
-    private final UpsightLogger mLogger;
     private Integer mMsgCampaignId;
     private Integer mMsgId;
-    private final ObjectMapper mObjectMapper;
     private long mPastSessionTime;
     private int mSessionNum;
     private long mSessionStart;
 
-    public Session(DataStoreRecord record, ObjectMapper mapper, UpsightLogger logger, long installTs) {
+    /**
+     * Splices each event's stored JSON into the output as-is. The sources were written by the
+     * same ObjectMapper when the event was recorded, so re-parsing them into a tree only to
+     * serialize them again is pure overhead. {@link UpsightRequest} only adds events whose source
+     * tokenizes as a single JSON object.
+     */
+    static class RawEventsSerializer extends JsonSerializer<Set<DataStoreRecord>> {
+        RawEventsSerializer() {
+        }
+
+        public void serialize(Set<DataStoreRecord> events, JsonGenerator jsonGenerator, SerializerProvider serializerProvider) throws IOException {
+            jsonGenerator.writeStartArray();
+            for (DataStoreRecord record : events) {
+                jsonGenerator.writeRawValue(record.getSource());
+            }
+            jsonGenerator.writeEndArray();
+        }
+    }
+
+    public Session(DataStoreRecord record, long installTs) {
         this.mEvents = new HashSet();
         this.mSessionStart = record.getSessionID();
-        this.mObjectMapper = mapper;
-        this.mLogger = logger;
         this.mInstallTs = installTs;
         this.mMsgId = record.getMessageID();
         this.mMsgCampaignId = record.getCampaignID();
@@ -42,21 +54,9 @@ class Session {
     }
 
     @JsonProperty("events")
-    public ObjectNode[] getEvents() {
-        List<ObjectNode> res = new ArrayList(this.mEvents.size());
-        for (DataStoreRecord record : this.mEvents) {
-            try {
-                JsonNode jsonNode = this.mObjectMapper.readTree(record.getSource());
-                if (jsonNode.isObject()) {
-                    res.add((ObjectNode) jsonNode);
-                }
-            } catch (IOException e) {
-                this.mLogger.m200e(getClass().getSimpleName(), e, "Error parsing JSON object.", new Object[0]);
-            } catch (Exception e2) {
-                e2.printStackTrace();
-            }
-        }
-        return (ObjectNode[]) res.toArray(new ObjectNode[this.mEvents.size()]);
+    @JsonSerialize(using = RawEventsSerializer.class)
+    public Set<DataStoreRecord> getEvents() {
+        return this.mEvents;
     }
 
     @JsonProperty("msg_id")
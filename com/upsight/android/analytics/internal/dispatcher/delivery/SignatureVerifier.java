@@ -2,4 +2,6 @@ package com.upsight.android.analytics.internal.dispatcher.delivery;
 
 public interface SignatureVerifier {
     boolean verify(byte[] bArr, byte[] bArr2);
+
+    boolean verify(byte[] bArr, int i, int i2, byte[] bArr2, byte[] bArr3);
 }
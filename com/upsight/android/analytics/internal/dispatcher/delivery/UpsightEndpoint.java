@@ -7,21 +7,25 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.upsight.android.Upsight;
 import com.upsight.android.internal.util.GzipHelper;
 import com.upsight.android.logger.UpsightLogger;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.UUID;
-import org.apache.commons.io.IOUtils;
 
 class UpsightEndpoint {
+    private static final String CHARSET_UTF_8 = "UTF-8";
     private static final String CONNECTION_CLOSE = "close";
     private static final int CONNECTION_TIMEOUT_MS = 30000;
     private static final String CONTENT_ENCODING_GZIP = "gzip";
     private static final String CONTENT_TYPE_APPLICATION_JSON = "application/json";
     private static final String EMPTY_STRING = "";
+    private static final int INITIAL_BODY_CAPACITY = 8192;
     static final String HTTP_HEADER_REF_ID = "X-US-Ref-Id";
     static final String HTTP_HEADER_US_DIGEST = "X-US-DIGEST";
+    public static final String LOG_TEXT_BYTES = " bytes";
     public static final String LOG_TEXT_POSTING = "POSTING:       ";
     public static final String LOG_TEXT_RECEIVING = "RECEIVING:     ";
     public static final String LOG_TEXT_REQUEST_BODY = "\nREQUEST BODY:  ";
@@ -32,11 +36,56 @@ class UpsightEndpoint {
     private static final String POST_METHOD_NAME = "POST";
     public static final String SIGNED_MESSAGE_SEPARATOR = ":";
     private static final String USER_AGENT_ANDROID;
-    private static final boolean USE_GZIP = false;
     private String mEndpointAddress;
+    private volatile boolean mGzipAccepted;
     private UpsightLogger mLogger;
     private ObjectMapper mMapper;
     private SignatureVerifier mSignatureVerifier;
+    private final Transport mTransport;
+
+    /**
+     * Byte sink whose backing array is handed straight to the connection and the signature
+     * verifier, avoiding the copies {@code toByteArray()} and {@code toString()} would make.
+     */
+    private static class BodyBuffer extends ByteArrayOutputStream {
+        BodyBuffer() {
+            super(INITIAL_BODY_CAPACITY);
+        }
+
+        public synchronized void writeTo(OutputStream out) throws IOException {
+            out.write(this.buf, 0, this.count);
+            out.flush();
+        }
+
+        void readFrom(InputStream in) throws IOException {
+            byte[] chunk = new byte[INITIAL_BODY_CAPACITY];
+            while (true) {
+                int read = in.read(chunk);
+                if (read < 0) {
+                    return;
+                }
+                write(chunk, 0, read);
+            }
+        }
+
+        boolean verify(SignatureVerifier verifier, byte[] suffix, byte[] signature) {
+            return verifier.verify(this.buf, 0, this.count, suffix, signature);
+        }
+
+        String toUtf8String() throws IOException {
+            return new String(this.buf, 0, this.count, CHARSET_UTF_8);
+        }
+    }
+
+    /**
+     * How requests reach the endpoint. {@link #KEEP_ALIVE} leaves connections in the platform's
+     * pool for the next batch and gzips request bodies; {@link #CLOSE} opens a fresh connection
+     * per batch and sends bodies uncompressed.
+     */
+    public enum Transport {
+        CLOSE,
+        KEEP_ALIVE
+    }
 
     public static class Response {
         public final String body;
@@ -56,76 +105,116 @@ class UpsightEndpoint {
         USER_AGENT_ANDROID = "Android-" + VERSION.SDK_INT;
     }
 
-    public UpsightEndpoint(String endpointAddress, SignatureVerifier signatureVerifier, ObjectMapper mapper, UpsightLogger logger) {
+    public UpsightEndpoint(String endpointAddress, SignatureVerifier signatureVerifier, ObjectMapper mapper, UpsightLogger logger, Transport transport) {
         this.mEndpointAddress = endpointAddress;
         this.mSignatureVerifier = signatureVerifier;
         this.mMapper = mapper;
         this.mLogger = logger;
+        this.mTransport = transport;
+        this.mGzipAccepted = transport == Transport.KEEP_ALIVE;
     }
 
     public Response send(UpsightRequest request) throws IOException {
+        boolean gzip = this.mGzipAccepted;
+        Response response = send(request, gzip);
+        if (gzip && response.statusCode == HttpURLConnection.HTTP_UNSUPPORTED_TYPE) {
+            this.mGzipAccepted = false;
+            this.mLogger.m205w(Upsight.LOG_TAG, "Endpoint rejected gzip request body, sending uncompressed: " + this.mEndpointAddress, new Object[0]);
+            response = send(request, false);
+        }
+        return response;
+    }
+
+    private Response send(UpsightRequest request, boolean gzip) throws IOException {
         String refId = UUID.randomUUID().toString();
-        HttpURLConnection urlConnection = null;
+        BodyBuffer body = new BodyBuffer();
+        OutputStream out = gzip ? GzipHelper.compress(body) : body;
+        try {
+            this.mMapper.writeValue(out, request);
+        } finally {
+            out.close();
+        }
+        this.mLogger.m197d(Upsight.LOG_TAG, LOG_TEXT_POSTING + refId + LOG_TEXT_TO + this.mEndpointAddress + LOG_TEXT_REQUEST_BODY + body.size() + LOG_TEXT_BYTES, new Object[0]);
+        HttpURLConnection urlConnection = (HttpURLConnection) new URL(this.mEndpointAddress).openConnection();
+        boolean reusable = false;
         try {
-            String requestBody = this.mMapper.writeValueAsString(request);
-            this.mLogger.m197d(Upsight.LOG_TAG, LOG_TEXT_POSTING + refId + LOG_TEXT_TO + this.mEndpointAddress + LOG_TEXT_REQUEST_BODY + requestBody, new Object[0]);
-            byte[] body = getRequestBodyBytes(requestBody, false);
-            urlConnection = (HttpURLConnection) new URL(this.mEndpointAddress).openConnection();
             urlConnection.setRequestMethod(POST_METHOD_NAME);
             urlConnection.setRequestProperty(HTTP_HEADER_REF_ID, refId);
             urlConnection.setRequestProperty("Content-Type", CONTENT_TYPE_APPLICATION_JSON);
+            if (gzip) {
+                urlConnection.setRequestProperty("Content-Encoding", CONTENT_ENCODING_GZIP);
+            }
             urlConnection.setRequestProperty("User-Agent", USER_AGENT_ANDROID);
-            urlConnection.setRequestProperty("Connection", CONNECTION_CLOSE);
+            if (this.mTransport == Transport.CLOSE) {
+                urlConnection.setRequestProperty("Connection", CONNECTION_CLOSE);
+            }
             urlConnection.setConnectTimeout(CONNECTION_TIMEOUT_MS);
             urlConnection.setReadTimeout(CONNECTION_TIMEOUT_MS);
             urlConnection.setDoInput(true);
             urlConnection.setDoOutput(true);
-            urlConnection.setFixedLengthStreamingMode(body.length);
-            IOUtils.write(body, urlConnection.getOutputStream());
+            urlConnection.setFixedLengthStreamingMode(body.size());
+            OutputStream requestStream = urlConnection.getOutputStream();
+            body.writeTo(requestStream);
+            requestStream.close();
             String respBody = null;
             int statusCode = urlConnection.getResponseCode();
             StringBuilder sb = new StringBuilder().append(LOG_TEXT_RECEIVING).append(refId).append(LOG_TEXT_STATUS_CODE).append(statusCode);
             if (statusCode == 200) {
-                respBody = getVerifiedResponse(urlConnection);
+                respBody = getVerifiedResponse(urlConnection, refId);
                 sb.append(LOG_TEXT_RESPONSE_BODY).append(TextUtils.isEmpty(respBody) ? LOG_TEXT_RESPONSE_BODY_NONE : respBody);
+            } else {
+                drain(urlConnection.getErrorStream());
             }
             this.mLogger.m197d(Upsight.LOG_TAG, sb.toString(), new Object[0]);
-            Response response = new Response(statusCode, respBody);
-            return response;
+            reusable = this.mTransport == Transport.KEEP_ALIVE;
+            return new Response(statusCode, respBody);
         } finally {
-            if (urlConnection != null) {
+            if (!reusable) {
                 urlConnection.disconnect();
             }
         }
     }
 
-    private byte[] getRequestBodyBytes(String requestBody, boolean useGzip) throws IOException {
-        return useGzip ? GzipHelper.compress(requestBody) : requestBody.getBytes();
-    }
-
-    private String getVerifiedResponse(HttpURLConnection urlConnection) throws IOException {
-        String respBody = EMPTY_STRING;
-        String refId = urlConnection.getRequestProperty(HTTP_HEADER_REF_ID);
+    /**
+     * Reads the whole response, which also lets the connection go back to the pool, and returns
+     * it only if the X-US-DIGEST signature over "body:refId" checks out. The signature is
+     * verified over the received bytes; no string is built unless it does.
+     */
+    private String getVerifiedResponse(HttpURLConnection urlConnection, String refId) throws IOException {
         String signature = urlConnection.getHeaderField(HTTP_HEADER_US_DIGEST);
-        if (TextUtils.isEmpty(refId) || TextUtils.isEmpty(signature)) {
-            return respBody;
-        }
         InputStream is = urlConnection.getInputStream();
         if (is == null) {
-            return respBody;
+            return EMPTY_STRING;
+        }
+        BodyBuffer body = new BodyBuffer();
+        try {
+            body.readFrom(is);
+        } finally {
+            is.close();
         }
-        String unverifiedRespBody = IOUtils.toString(is);
-        if (TextUtils.isEmpty(unverifiedRespBody)) {
-            return respBody;
+        if (TextUtils.isEmpty(signature) || body.size() == 0) {
+            return EMPTY_STRING;
         }
         try {
-            if (this.mSignatureVerifier.verify((unverifiedRespBody + SIGNED_MESSAGE_SEPARATOR + refId).getBytes(), Base64.decode(signature, 8))) {
-                return unverifiedRespBody;
+            if (body.verify(this.mSignatureVerifier, (SIGNED_MESSAGE_SEPARATOR + refId).getBytes(CHARSET_UTF_8), Base64.decode(signature, 8))) {
+                return body.toUtf8String();
             }
-            return respBody;
+            return EMPTY_STRING;
         } catch (IllegalArgumentException e) {
             this.mLogger.m200e(Upsight.LOG_TAG, e, "Message signature is not valid Base64. X-US-DIGEST: " + signature, new Object[0]);
-            return respBody;
+            return EMPTY_STRING;
+        }
+    }
+
+    private static void drain(InputStream is) throws IOException {
+        if (is != null) {
+            try {
+                byte[] chunk = new byte[INITIAL_BODY_CAPACITY];
+                while (is.read(chunk) >= 0) {
+                }
+            } finally {
+                is.close();
+            }
         }
     }
 }
@@ -1,9 +1,11 @@
 package com.upsight.android.analytics.internal.dispatcher.delivery;
 
 import android.text.TextUtils;
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonSerializer;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.upsight.android.UpsightContext;
@@ -23,8 +25,6 @@ import java.util.Map;
 @JsonSerialize(using = RequestSerializer.class)
 class UpsightRequest {
     private long mInstallTs;
-    private final UpsightLogger mLogger;
-    private final ObjectMapper mObjectMapper;
     private boolean mOptOut;
     private long mRequestTs;
     private Schema mSchema;
@@ -74,28 +74,59 @@ class UpsightRequest {
         }
     }
 
-    public UpsightRequest(UpsightContext upsight, Request request, ObjectMapper objectMapper, Clock clock, UpsightLogger logger) {
+    public UpsightRequest(UpsightContext upsight, Request request, Clock clock) {
         this.mUpsight = upsight;
-        this.mObjectMapper = objectMapper;
-        this.mLogger = logger;
         this.mInstallTs = PreferencesHelper.getLong(upsight, PreferencesHelper.INSTALL_TIMESTAMP_NAME, 0);
-        this.mSessions = getSessions(request.batch);
+        this.mSessions = getSessions(request.batch, upsight.getCoreComponent().objectMapper().getFactory(), upsight.getLogger());
         this.mOptOut = UpsightOptOutStatus.get(this.mUpsight);
         this.mRequestTs = clock.currentTimeSeconds();
         this.mSchema = request.schema;
     }
 
-    private Session[] getSessions(Batch batch) {
+    private Session[] getSessions(Batch batch, JsonFactory jsonFactory, UpsightLogger logger) {
         Map<Long, Session> sessions = new HashMap();
         for (Packet packet : batch.getPackets()) {
             DataStoreRecord event = packet.getRecord();
+            if (!isJsonObject(jsonFactory, event.getSource(), logger)) {
+                continue;
+            }
             Session session = (Session) sessions.get(Long.valueOf(event.getSessionID()));
             if (session == null) {
-                session = new Session(event, this.mObjectMapper, this.mLogger, this.mInstallTs);
+                session = new Session(event, this.mInstallTs);
                 sessions.put(Long.valueOf(event.getSessionID()), session);
             }
             session.addEvent(event);
         }
         return (Session[]) sessions.values().toArray(new Session[sessions.values().size()]);
     }
+
+    /**
+     * Checks that the stored source is exactly one well-formed JSON object. Events are spliced into
+     * the request unparsed, so one torn record would otherwise invalidate the whole batch. The
+     * source is only tokenized, not turned into a tree.
+     */
+    private static boolean isJsonObject(JsonFactory jsonFactory, String source, UpsightLogger logger) {
+        if (source == null) {
+            return false;
+        }
+        JsonParser parser = null;
+        try {
+            parser = jsonFactory.createParser(source);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            parser.skipChildren();
+            return parser.nextToken() == null;
+        } catch (IOException e) {
+            logger.m200e(Session.class.getSimpleName(), e, "Error parsing JSON object.", new Object[0]);
+            return false;
+        } finally {
+            if (parser != null) {
+                try {
+                    parser.close();
+                } catch (IOException e2) {
+                }
+            }
+        }
+    }
 }
@@ -6,7 +6,7 @@ import com.upsight.android.analytics.internal.DataStoreRecord;
 import com.upsight.android.analytics.internal.dispatcher.delivery.OnDeliveryListener;
 import com.upsight.android.analytics.internal.dispatcher.delivery.OnResponseListener;
 import com.upsight.android.analytics.internal.dispatcher.routing.Packet.State;
-import com.upsight.android.analytics.internal.dispatcher.util.ByFilterSelector;
+import com.upsight.android.analytics.internal.dispatcher.util.Selector;
 import java.util.concurrent.atomic.AtomicInteger;
 import rx.Scheduler;
 import rx.Scheduler.Worker;
@@ -16,7 +16,7 @@ import spacemadness.com.lunarconsole.C1391R;
 public class Router implements OnDeliveryListener, OnResponseListener {
     private final AtomicInteger mEventsInRouting;
     private boolean mIsFinishRequested;
-    private final ByFilterSelector<Route> mRouteSelector;
+    private final Selector<Route> mRouteSelector;
     private final RoutingListener mRoutingListener;
     private final Worker mWorker;
 
@@ -82,7 +82,7 @@ public class Router implements OnDeliveryListener, OnResponseListener {
         }
     }
 
-    Router(Scheduler scheduler, ByFilterSelector<Route> routeSelector, RoutingListener routingListener) {
+    Router(Scheduler scheduler, Selector<Route> routeSelector, RoutingListener routingListener) {
         this.mEventsInRouting = new AtomicInteger();
         this.mWorker = scheduler.createWorker();
         this.mRouteSelector = routeSelector;
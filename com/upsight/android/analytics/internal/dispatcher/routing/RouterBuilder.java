@@ -5,7 +5,7 @@ import com.upsight.android.analytics.internal.dispatcher.delivery.Queue.Trash;
 import com.upsight.android.analytics.internal.dispatcher.delivery.QueueBuilder;
 import com.upsight.android.analytics.internal.dispatcher.delivery.QueueConfig;
 import com.upsight.android.analytics.internal.dispatcher.schema.Schema;
-import com.upsight.android.analytics.internal.dispatcher.util.ByFilterSelector;
+import com.upsight.android.analytics.internal.dispatcher.util.PrefixTrieSelector;
 import com.upsight.android.analytics.internal.dispatcher.util.Selector;
 import java.util.HashMap;
 import java.util.LinkedList;
@@ -25,7 +25,7 @@ public class RouterBuilder {
 
     public Router build(RoutingConfig config, Selector<Schema> schemaSelectorByName, Selector<Schema> schemaSelectorByType, RoutingListener listener) {
         Map<String, Queue> queues = buildQueues(config, schemaSelectorByName, schemaSelectorByType);
-        Router router = new Router(this.mScheduler, new ByFilterSelector(buildRoutes(config, queues)), listener);
+        Router router = new Router(this.mScheduler, new PrefixTrieSelector(buildRoutes(config, queues)), listener);
         for (Queue queue : queues.values()) {
             queue.setOnDeliveryListener(router);
             queue.setOnResponseListener(router);
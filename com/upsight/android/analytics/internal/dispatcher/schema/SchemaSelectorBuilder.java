@@ -2,8 +2,8 @@ package com.upsight.android.analytics.internal.dispatcher.schema;
 
 import com.upsight.android.UpsightContext;
 import com.upsight.android.analytics.internal.dispatcher.schema.Schema.Default;
-import com.upsight.android.analytics.internal.dispatcher.util.ByFilterSelector;
 import com.upsight.android.analytics.internal.dispatcher.util.ByNameSelector;
+import com.upsight.android.analytics.internal.dispatcher.util.PrefixTrieSelector;
 import com.upsight.android.analytics.internal.dispatcher.util.Selector;
 import com.upsight.android.analytics.provider.UpsightDataProvider;
 import java.util.HashMap;
@@ -62,6 +62,6 @@ public class SchemaSelectorBuilder {
                 res.put(key, Schema.from(value, this.mDefaultSchema, attributes));
             }
         }
-        return new ByFilterSelector(res, this.mDefaultSchema);
+        return new PrefixTrieSelector(res, this.mDefaultSchema);
     }
 }
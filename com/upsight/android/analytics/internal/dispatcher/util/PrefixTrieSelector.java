@@ -0,0 +1,131 @@
+package com.upsight.android.analytics.internal.dispatcher.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Selects a value by event type against a set of filters such as {@code upsight.*},
+ * {@code upsight.session.} or {@code upsight.session.start}.
+ *
+ * A filter matches a type it equals, or a type it prefixes when the filter ends with a separator,
+ * ends with {@code *} or is empty; the longest matching filter wins. The filters are compiled
+ * once into a character trie, so a lookup walks the event type a single time no matter how many
+ * filters are configured, and results are memoized per event type.
+ */
+public class PrefixTrieSelector<D> implements Selector<D> {
+    private static final int MAX_CACHED_TYPES = 1024;
+    private static final Object NO_VALUE = new Object();
+    private static final String SEPARATOR = ".";
+    private final Map<String, Object> mCache;
+    private final D mDefaultValue;
+    private final Node mRoot;
+
+    private static class Node {
+        private Node[] mChildren;
+        private Object mExactValue;
+        private boolean mHasExact;
+        private boolean mHasPrefix;
+        private char[] mKeys;
+        private Object mPrefixValue;
+        private int mSize;
+
+        private Node() {
+        }
+
+        Node child(char key) {
+            if (this.mSize == 0) {
+                return null;
+            }
+            int index = Arrays.binarySearch(this.mKeys, 0, this.mSize, key);
+            return index >= 0 ? this.mChildren[index] : null;
+        }
+
+        Node getOrAddChild(char key) {
+            if (this.mKeys == null) {
+                this.mKeys = new char[2];
+                this.mChildren = new Node[2];
+            }
+            int index = Arrays.binarySearch(this.mKeys, 0, this.mSize, key);
+            if (index >= 0) {
+                return this.mChildren[index];
+            }
+            int insertAt = -(index + 1);
+            if (this.mSize == this.mKeys.length) {
+                this.mKeys = Arrays.copyOf(this.mKeys, this.mSize * 2);
+                this.mChildren = (Node[]) Arrays.copyOf(this.mChildren, this.mSize * 2);
+            }
+            System.arraycopy(this.mKeys, insertAt, this.mKeys, insertAt + 1, this.mSize - insertAt);
+            System.arraycopy(this.mChildren, insertAt, this.mChildren, insertAt + 1, this.mSize - insertAt);
+            Node node = new Node();
+            this.mKeys[insertAt] = key;
+            this.mChildren[insertAt] = node;
+            this.mSize++;
+            return node;
+        }
+    }
+
+    public PrefixTrieSelector(Map<String, D> data, D defaultValue) {
+        this.mCache = new ConcurrentHashMap();
+        this.mDefaultValue = defaultValue;
+        this.mRoot = new Node();
+        for (Entry<String, D> entry : data.entrySet()) {
+            add((String) entry.getKey(), entry.getValue());
+        }
+    }
+
+    public PrefixTrieSelector(Map<String, D> data) {
+        this(data, null);
+    }
+
+    public D select(String eventType) {
+        Object cached = this.mCache.get(eventType);
+        if (cached == null) {
+            cached = lookup(eventType);
+            if (cached == null) {
+                cached = NO_VALUE;
+            }
+            if (this.mCache.size() < MAX_CACHED_TYPES) {
+                this.mCache.put(eventType, cached);
+            }
+        }
+        return cached == NO_VALUE ? null : (D) cached;
+    }
+
+    private void add(String filter, D value) {
+        boolean isWildcard = filter.endsWith("*");
+        String matcher = filter.replace("*", "");
+        Node node = this.mRoot;
+        for (int i = 0; i < matcher.length(); i++) {
+            node = node.getOrAddChild(matcher.charAt(i));
+        }
+        node.mHasExact = true;
+        node.mExactValue = value;
+        if (isWildcard || matcher.length() == 0 || matcher.endsWith(SEPARATOR)) {
+            node.mHasPrefix = true;
+            node.mPrefixValue = value;
+        }
+    }
+
+    private Object lookup(String eventType) {
+        Node node = this.mRoot;
+        boolean found = false;
+        Object best = null;
+        int length = eventType.length();
+        for (int i = 0; node != null; i++) {
+            if (node.mHasPrefix) {
+                found = true;
+                best = node.mPrefixValue;
+            }
+            if (i == length) {
+                if (node.mHasExact) {
+                    return node.mExactValue;
+                }
+                break;
+            }
+            node = node.child(eventType.charAt(i));
+        }
+        return found ? best : this.mDefaultValue;
+    }
+}
@@ -5,6 +5,9 @@ import android.net.Uri;
 import android.provider.BaseColumns;
 
 public final class Content {
+    static final String EXTRA_COUNT = "count";
+    static final String EXTRA_IDS = "ids";
+    static final String METHOD_BULK_DELETE = "bulkDelete";
 
     interface ModelColumns extends BaseColumns {
         public static final String DATA = "data";
@@ -1,6 +1,7 @@
 package com.upsight.android.internal.persistence;
 
 import android.content.Context;
+import java.util.List;
 import rx.Observable;
 
 final class ContentObservables {
@@ -11,6 +12,10 @@ final class ContentObservables {
         return Observable.create(new OnSubscribeInsert(context, storable));
     }
 
+    public static Observable<Storable> insert(Context context, List<Storable> storables) {
+        return Observable.create(new OnSubscribeBulkInsert(context, storables));
+    }
+
     public static Observable<Storable> update(Context context, Storable storable) {
         return Observable.create(new OnSubscribeUpdate(context, storable));
     }
@@ -19,6 +24,10 @@ final class ContentObservables {
         return Observable.create(new OnSubscribeRemove(context, storable));
     }
 
+    public static Observable<Storable> remove(Context context, List<Storable> storables) {
+        return Observable.create(new OnSubscribeBulkRemove(context, storables));
+    }
+
     public static Observable<Storable> fetch(Context context, String type) {
         return Observable.create(new OnSubscribeFetchByType(context, type)).onBackpressureBuffer();
     }
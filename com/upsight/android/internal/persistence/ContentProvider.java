@@ -5,6 +5,7 @@ import android.content.Context;
 import android.content.UriMatcher;
 import android.database.Cursor;
 import android.net.Uri;
+import android.os.Bundle;
 import android.text.TextUtils;
 import com.voxelbusters.nativeplugins.defines.Keys;
 import java.util.List;
@@ -94,6 +95,42 @@ public final class ContentProvider extends android.content.ContentProvider {
         }
     }
 
+    public int bulkInsert(Uri uri, ContentValues[] values) {
+        switch (sMatcher.match(uri)) {
+            case MODEL /*2*/:
+            case MODEL_ALL /*3*/:
+                for (ContentValues contentValues : values) {
+                    if (TextUtils.isEmpty(contentValues.getAsString(Keys.TYPE))) {
+                        throw new IllegalArgumentException("ContentValues must have a model type");
+                    }
+                }
+                int result = this.mDataHelper.bulkInsert(values);
+                if (result > 0) {
+                    getContext().getContentResolver().notifyChange(uri, null);
+                }
+                return result;
+            default:
+                throw new IllegalArgumentException("Uri not supported by bulkInsert:" + uri);
+        }
+    }
+
+    public Bundle call(String method, String arg, Bundle extras) {
+        if (!Content.METHOD_BULK_DELETE.equals(method)) {
+            return super.call(method, arg, extras);
+        }
+        String[] ids = extras == null ? null : extras.getStringArray(Content.EXTRA_IDS);
+        if (ids == null) {
+            throw new IllegalArgumentException("Bulk delete requires an array of ids");
+        }
+        int result = this.mDataHelper.bulkDelete(ids);
+        if (result > 0) {
+            getContext().getContentResolver().notifyChange(Content.getContentUri(getContext()), null);
+        }
+        Bundle bundle = new Bundle();
+        bundle.putInt(Content.EXTRA_COUNT, result);
+        return bundle;
+    }
+
     public int delete(Uri uri, String selection, String[] selectionArgs) {
         switch (sMatcher.match(uri)) {
             case MODEL_ITEM /*1*/:
@@ -4,6 +4,10 @@ import android.content.ContentValues;
 import android.database.Cursor;
 
 interface DataHelper {
+    int bulkDelete(String[] strArr);
+
+    int bulkInsert(ContentValues[] contentValuesArr);
+
     int delete(String str, String[] strArr);
 
     long insert(ContentValues contentValues);
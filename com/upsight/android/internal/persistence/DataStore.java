@@ -15,12 +15,15 @@ import com.upsight.android.persistence.UpsightDataStoreListener;
 import com.upsight.android.persistence.UpsightStorableSerializer;
 import com.upsight.android.persistence.UpsightSubscription;
 import com.upsight.android.persistence.annotation.UpsightStorableType;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import rx.Observable;
 import rx.Scheduler;
 import rx.functions.Action1;
+import rx.functions.Func0;
 import rx.functions.Func1;
 import rx.functions.Func2;
 
@@ -178,6 +181,63 @@ class DataStore implements UpsightDataStore {
         }
     }
 
+    private class PublishBatch<T> implements Func1<List<Storable>, Observable<T>> {
+        private final boolean[] mCreated;
+        private final List<T> mObjects;
+        private final boolean mRemoved;
+        private final String[] mTypes;
+
+        PublishBatch(List<T> objects, String[] types, boolean[] created, boolean removed) {
+            this.mObjects = objects;
+            this.mTypes = types;
+            this.mCreated = created;
+            this.mRemoved = removed;
+        }
+
+        public Observable<T> call(List<Storable> storables) {
+            for (int i = 0; i < this.mObjects.size(); i++) {
+                Action1<T> publisher;
+                if (this.mRemoved) {
+                    publisher = Subscriptions.publishRemoved(DataStore.this.mBus, this.mTypes[i]);
+                } else if (this.mCreated[i]) {
+                    publisher = Subscriptions.publishCreated(DataStore.this.mBus, this.mTypes[i]);
+                } else {
+                    publisher = Subscriptions.publishUpdated(DataStore.this.mBus, this.mTypes[i]);
+                }
+                publisher.call(this.mObjects.get(i));
+            }
+            return Observable.from(this.mObjects);
+        }
+    }
+
+    private class StoreBatch<T> implements Func0<Observable<T>> {
+        private final List<T> mObjects;
+        private final boolean mRemove;
+
+        StoreBatch(List<T> objects, boolean remove) {
+            this.mObjects = objects;
+            this.mRemove = remove;
+        }
+
+        public Observable<T> call() {
+            int size = this.mObjects.size();
+            String[] types = new String[size];
+            boolean[] created = new boolean[size];
+            try {
+                List<Storable> storables = DataStore.this.serializeAll(this.mObjects, types, created, this.mRemove);
+                Observable<Storable> observable;
+                if (this.mRemove) {
+                    observable = ContentObservables.remove(DataStore.this.mContext, storables);
+                } else {
+                    observable = ContentObservables.insert(DataStore.this.mContext, storables);
+                }
+                return observable.toList().flatMap(new PublishBatch(this.mObjects, types, created, this.mRemove));
+            } catch (UpsightException e) {
+                return Observable.error(e);
+            }
+        }
+    }
+
     DataStore(Context context, StorableInfoCache infoCache, StorableIdFactory idFactory, Scheduler subscribeOnScheduler, Scheduler observeOnScheduler, Bus bus) {
         this.mContext = context;
         this.mInfoCache = infoCache;
@@ -217,6 +277,20 @@ class DataStore implements UpsightDataStore {
         return store(object, new LoggingListener());
     }
 
+    public <T> UpsightSubscription storeAll(Collection<T> objects, UpsightDataStoreListener<Set<T>> listener) {
+        if (listener != null) {
+            return Subscriptions.from(storeAllObservable(objects).toList().subscribeOn(this.mSubscribeOnScheduler).observeOn(this.mObserveOnScheduler).subscribe(new C09131(listener), new C09142(listener)));
+        }
+        throw new IllegalArgumentException("Listener can not be null.");
+    }
+
+    public <T> UpsightSubscription removeAll(Collection<T> objects, UpsightDataStoreListener<Set<T>> listener) {
+        if (listener != null) {
+            return Subscriptions.from(removeAllObservable(objects).toList().subscribeOn(this.mSubscribeOnScheduler).observeOn(this.mObserveOnScheduler).subscribe(new C09175(listener), new C09186(listener)));
+        }
+        throw new IllegalArgumentException("Listener can not be null.");
+    }
+
     public <T> UpsightSubscription remove(T object, UpsightDataStoreListener<T> listener) {
         if (listener != null) {
             return Subscriptions.from(removeObservable(object).subscribeOn(this.mSubscribeOnScheduler).observeOn(this.mObserveOnScheduler).subscribe(new C09219(listener), new AnonymousClass10(listener)));
@@ -340,13 +414,58 @@ class DataStore implements UpsightDataStore {
             if (info == null) {
                 throw new IllegalArgumentException(String.format("Class %s must be annotated with @%s", new Object[]{clazz.getName(), Storable.class.getSimpleName()}));
             }
-            return ContentObservables.fetch(this.mContext, info.getStorableTypeAccessor().getType(), ids).lift(Storables.deserialize(info)).flatMap(new Func1<T, Observable<T>>() {
-                public Observable<T> call(T t) {
-                    return DataStore.this.removeObservable(t);
+            return ContentObservables.fetch(this.mContext, info.getStorableTypeAccessor().getType(), ids).lift(Storables.deserialize(info)).toList().flatMap(new Func1<List<T>, Observable<T>>() {
+                public Observable<T> call(List<T> objects) {
+                    return DataStore.this.removeAllObservable(objects);
                 }
             });
         } catch (UpsightException e) {
             return Observable.error(e);
         }
     }
+
+    public <T> Observable<T> storeAllObservable(Collection<T> objects) {
+        if (objects != null) {
+            return Observable.defer(new StoreBatch(new ArrayList(objects), false));
+        }
+        throw new IllegalArgumentException("Attempting to store null collection.");
+    }
+
+    public <T> Observable<T> removeAllObservable(Collection<T> objects) {
+        if (objects != null) {
+            return Observable.defer(new StoreBatch(new ArrayList(objects), true));
+        }
+        throw new IllegalArgumentException("Collection can not be null.");
+    }
+
+    /**
+     * Serializes a batch up front so it can be written in a single transaction. Objects being
+     * stored without an ID get one and are flagged in {@code created}; objects being removed must
+     * already have one.
+     */
+    private <T> List<Storable> serializeAll(List<T> objects, String[] types, boolean[] created, boolean remove) throws UpsightException {
+        List<Storable> storables = new ArrayList(objects.size());
+        for (int i = 0; i < objects.size(); i++) {
+            T object = objects.get(i);
+            if (object == null) {
+                throw new IllegalArgumentException("Batch can not contain null objects.");
+            }
+            StorableInfo<T> info = this.mInfoCache.get(object.getClass());
+            if (info == null) {
+                throw new UpsightException("Class %s must be annotated with @%s", object.getClass().getName(), Storable.class.getSimpleName());
+            }
+            String id = info.getIdentifierAccessor().getId(object);
+            if (TextUtils.isEmpty(id)) {
+                if (remove) {
+                    throw new UpsightException("Object must be stored before removal.", new Object[0]);
+                }
+                id = this.mIdFactory.createObjectID();
+                info.getIdentifierAccessor().setId(object, id);
+                created[i] = true;
+            }
+            types[i] = info.getStorableTypeAccessor().getType(object);
+            storables.add(Storable.create(id, types[i], remove ? null : info.getDeserializer().toString(object)));
+        }
+        return storables;
+    }
 }
@@ -0,0 +1,45 @@
+package com.upsight.android.internal.persistence;
+
+import android.content.ContentValues;
+import android.content.Context;
+import com.voxelbusters.nativeplugins.defines.Keys;
+import java.util.List;
+import rx.Observable.OnSubscribe;
+import rx.Subscriber;
+
+class OnSubscribeBulkInsert implements OnSubscribe<Storable> {
+    private final Context mContext;
+    private final List<Storable> mStorables;
+
+    OnSubscribeBulkInsert(Context context, List<Storable> storables) {
+        if (context == null) {
+            throw new IllegalArgumentException("Provided Context can not be null.");
+        } else if (storables == null) {
+            throw new IllegalArgumentException("Provided UpsightStorable list can not be null.");
+        } else {
+            this.mContext = context;
+            this.mStorables = storables;
+        }
+    }
+
+    public void call(Subscriber<? super Storable> subscriber) {
+        if (!this.mStorables.isEmpty()) {
+            ContentValues[] values = new ContentValues[this.mStorables.size()];
+            for (int i = 0; i < values.length; i++) {
+                Storable storable = (Storable) this.mStorables.get(i);
+                ContentValues contentValues = new ContentValues();
+                contentValues.put("_id", storable.getID());
+                contentValues.put(Keys.TYPE, storable.getType());
+                contentValues.put(ModelColumns.DATA, storable.getValue());
+                values[i] = contentValues;
+            }
+            if (this.mContext.getContentResolver().bulkInsert(Content.getContentUri(this.mContext), values) != values.length) {
+                throw new IllegalStateException("Unable to persist models!");
+            }
+            for (Storable storable2 : this.mStorables) {
+                subscriber.onNext(storable2);
+            }
+        }
+        subscriber.onCompleted();
+    }
+}
@@ -0,0 +1,47 @@
+package com.upsight.android.internal.persistence;
+
+import android.content.Context;
+import android.os.Bundle;
+import com.upsight.android.UpsightException;
+import java.util.List;
+import rx.Observable.OnSubscribe;
+import rx.Subscriber;
+
+class OnSubscribeBulkRemove implements OnSubscribe<Storable> {
+    private final Context mContext;
+    private final List<Storable> mStorables;
+
+    OnSubscribeBulkRemove(Context context, List<Storable> storables) {
+        if (context == null) {
+            throw new IllegalArgumentException("Provided Context can not be null.");
+        } else if (storables == null) {
+            throw new IllegalArgumentException("Provided UpsightStorable list can not be null.");
+        } else {
+            this.mContext = context;
+            this.mStorables = storables;
+        }
+    }
+
+    /**
+     * Removes every storable in one provider call. Rows that were already gone are still emitted as
+     * removed, since the end state is the same.
+     */
+    public void call(Subscriber<? super Storable> subscriber) {
+        if (!this.mStorables.isEmpty()) {
+            String[] ids = new String[this.mStorables.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = ((Storable) this.mStorables.get(i)).getID();
+            }
+            Bundle extras = new Bundle();
+            extras.putStringArray(Content.EXTRA_IDS, ids);
+            if (this.mContext.getContentResolver().call(Content.getAuthoritytUri(this.mContext), Content.METHOD_BULK_DELETE, null, extras) == null) {
+                subscriber.onError(new UpsightException("Objects could not be removed.", new Object[0]));
+                return;
+            }
+            for (Storable storable : this.mStorables) {
+                subscriber.onNext(storable);
+            }
+        }
+        subscriber.onCompleted();
+    }
+}
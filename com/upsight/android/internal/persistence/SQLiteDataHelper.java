@@ -5,11 +5,17 @@ import android.content.Context;
 import android.database.Cursor;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import com.voxelbusters.nativeplugins.defines.Keys;
 
 class SQLiteDataHelper implements DataHelper {
     private static final String DATABASE_NAME = "upsight.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 2;
+    private static final String SQL_BULK_DELETE = "DELETE FROM models WHERE _id = ?";
+    private static final String SQL_BULK_INSERT = "INSERT OR REPLACE INTO models (_id, type, data) VALUES (?, ?, ?)";
     private static final String TABLE_MODELS = "models";
+    private SQLiteStatement mDeleteStatement;
+    private SQLiteStatement mInsertStatement;
     private SQLiteOpenHelper mOpenHelper;
 
     private static final class DatabaseHelper extends SQLiteOpenHelper {
@@ -19,10 +25,18 @@ class SQLiteDataHelper implements DataHelper {
 
         public void onCreate(SQLiteDatabase db) {
             db.execSQL("CREATE TABLE models (_id TEXT PRIMARY KEY NOT NULL, type TEXT NOT NULL, data TEXT NOT NULL  );");
-            db.execSQL("CREATE INDEX ID_INDEX ON models (_id);");
+            db.execSQL("CREATE INDEX TYPE_INDEX ON models (type);");
         }
 
+        /**
+         * Version 1 also indexed _id, which as the primary key already has an implicit index.
+         */
         public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+            if (oldVersion == 1) {
+                db.execSQL("DROP INDEX IF EXISTS ID_INDEX;");
+                db.execSQL("CREATE INDEX IF NOT EXISTS TYPE_INDEX ON models (type);");
+                return;
+            }
             db.execSQL("DROP TABLE IF EXISTS models");
             onCreate(db);
         }
@@ -47,4 +61,50 @@ class SQLiteDataHelper implements DataHelper {
     public int update(ContentValues contentValues, String selection, String[] selectionArgs) {
         return this.mOpenHelper.getWritableDatabase().update(TABLE_MODELS, contentValues, selection, selectionArgs);
     }
+
+    public synchronized int bulkInsert(ContentValues[] values) {
+        SQLiteDatabase db = this.mOpenHelper.getWritableDatabase();
+        if (this.mInsertStatement == null) {
+            this.mInsertStatement = db.compileStatement(SQL_BULK_INSERT);
+        }
+        SQLiteStatement statement = this.mInsertStatement;
+        int count = 0;
+        db.beginTransaction();
+        try {
+            for (ContentValues contentValues : values) {
+                statement.bindString(1, contentValues.getAsString("_id"));
+                statement.bindString(2, contentValues.getAsString(Keys.TYPE));
+                statement.bindString(3, contentValues.getAsString(ModelColumns.DATA));
+                if (statement.executeInsert() >= 0) {
+                    count++;
+                }
+            }
+            db.setTransactionSuccessful();
+            return count;
+        } finally {
+            statement.clearBindings();
+            db.endTransaction();
+        }
+    }
+
+    public synchronized int bulkDelete(String[] ids) {
+        SQLiteDatabase db = this.mOpenHelper.getWritableDatabase();
+        if (this.mDeleteStatement == null) {
+            this.mDeleteStatement = db.compileStatement(SQL_BULK_DELETE);
+        }
+        SQLiteStatement statement = this.mDeleteStatement;
+        int count = 0;
+        db.beginTransaction();
+        try {
+            for (String id : ids) {
+                statement.bindString(1, id);
+                count += statement.executeUpdateDelete();
+            }
+            db.setTransactionSuccessful();
+            return count;
+        } finally {
+            statement.clearBindings();
+            db.endTransaction();
+        }
+    }
 }
@@ -3,14 +3,15 @@ package com.upsight.android.internal.persistence.subscription;
 import android.util.Log;
 import com.upsight.android.Upsight;
 import com.upsight.android.UpsightException;
-import java.util.Set;
 import rx.Subscriber;
 
 class AnnotatedSubscriber extends Subscriber<DataStoreEvent> {
-    private final Set<SubscriptionHandler> mHandlers;
+    private final SubscriptionTable mTable;
+    private final Object mTarget;
 
-    AnnotatedSubscriber(Set<SubscriptionHandler> handlers) {
-        this.mHandlers = handlers;
+    AnnotatedSubscriber(Object target, SubscriptionTable table) {
+        this.mTarget = target;
+        this.mTable = table;
     }
 
     public void onCompleted() {
@@ -20,13 +21,11 @@ class AnnotatedSubscriber extends Subscriber<DataStoreEvent> {
     }
 
     public void onNext(DataStoreEvent dataStoreEvent) {
-        for (SubscriptionHandler handler : this.mHandlers) {
-            if (handler.matches(dataStoreEvent.action, dataStoreEvent.sourceType)) {
-                try {
-                    handler.handle(dataStoreEvent);
-                } catch (UpsightException e) {
-                    Log.e(Upsight.LOG_TAG, "Failed to handle subscription.", e);
-                }
+        for (SubscriptionHandler handler : this.mTable.getHandlers(dataStoreEvent.action, dataStoreEvent.sourceType)) {
+            try {
+                handler.handle(this.mTarget, dataStoreEvent);
+            } catch (UpsightException e) {
+                Log.e(Upsight.LOG_TAG, "Failed to handle subscription.", e);
             }
         }
     }
@@ -43,7 +43,7 @@ class OnSubscribeBus implements OnSubscribe<DataStoreEvent> {
     }
 
     public void call(Subscriber<? super DataStoreEvent> subscriber) {
-        BusAdapter adapter = new BusAdapter(null);
+        BusAdapter adapter = new BusAdapter(subscriber);
         this.mBus.register(adapter);
         subscriber.add(Subscriptions.create(new C09221(adapter)));
     }
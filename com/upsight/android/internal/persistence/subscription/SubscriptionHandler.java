@@ -1,37 +1,37 @@
 package com.upsight.android.internal.persistence.subscription;
 
 import com.upsight.android.UpsightException;
-import com.upsight.android.internal.persistence.subscription.DataStoreEvent.Action;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 
+/**
+ * One subscription method of a subscriber class, shared by every instance of that class.
+ */
 class SubscriptionHandler {
-    private final Action mAction;
     private final Method mMethod;
-    private final Object mTarget;
-    private final String mType;
 
-    SubscriptionHandler(Object target, Method method, Action action, String type) {
-        this.mTarget = target;
+    /**
+     * Subscription methods are public already; making them accessible only skips the access check
+     * on every invocation.
+     */
+    SubscriptionHandler(Method method) {
         this.mMethod = method;
-        this.mAction = action;
-        this.mType = type;
-    }
-
-    public boolean matches(Action action, String type) {
-        return this.mAction.equals(action) && this.mType.equals(type);
+        try {
+            method.setAccessible(true);
+        } catch (SecurityException e) {
+        }
     }
 
-    public void handle(DataStoreEvent event) throws UpsightException {
+    public void handle(Object target, DataStoreEvent event) throws UpsightException {
         ReflectiveOperationException e;
         try {
-            this.mMethod.invoke(this.mTarget, new Object[]{event.source});
+            this.mMethod.invoke(target, new Object[]{event.source});
         } catch (InvocationTargetException e2) {
             e = e2;
-            throw new UpsightException(e, "Failed to invoke subscription method %s.%s: ", this.mTarget.getClass(), this.mMethod.getName());
+            throw new UpsightException(e, "Failed to invoke subscription method %s.%s: ", target.getClass(), this.mMethod.getName());
         } catch (IllegalAccessException e3) {
             e = e3;
-            throw new UpsightException(e, "Failed to invoke subscription method %s.%s: ", this.mTarget.getClass(), this.mMethod.getName());
+            throw new UpsightException(e, "Failed to invoke subscription method %s.%s: ", target.getClass(), this.mMethod.getName());
         }
     }
 }
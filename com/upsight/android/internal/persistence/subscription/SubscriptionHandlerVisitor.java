@@ -3,40 +3,56 @@ package com.upsight.android.internal.persistence.subscription;
 import com.upsight.android.internal.persistence.subscription.DataStoreEvent.Action;
 import com.upsight.android.persistence.annotation.UpsightStorableType;
 import java.lang.reflect.Method;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 class SubscriptionHandlerVisitor implements ClassSubscriptionVisitor {
-    private final Set<SubscriptionHandler> mHandlers;
-    private final Object mTarget;
+    private final Map<String, List<SubscriptionHandler>>[] mHandlers;
 
-    SubscriptionHandlerVisitor(Object target) {
-        this.mHandlers = new HashSet();
-        this.mTarget = target;
+    SubscriptionHandlerVisitor() {
+        this.mHandlers = new Map[Action.values().length];
+        for (int i = 0; i < this.mHandlers.length; i++) {
+            this.mHandlers[i] = new HashMap();
+        }
     }
 
     public void visitCreatedSubscription(Method method, Class<?> type) {
-        UpsightStorableType storableType = (UpsightStorableType) type.getAnnotation(UpsightStorableType.class);
-        if (storableType != null) {
-            this.mHandlers.add(new SubscriptionHandler(this.mTarget, method, Action.Created, storableType.value()));
-        }
+        add(Action.Created, method, type);
     }
 
     public void visitUpdatedSubscription(Method method, Class<?> type) {
-        UpsightStorableType storableType = (UpsightStorableType) type.getAnnotation(UpsightStorableType.class);
-        if (storableType != null) {
-            this.mHandlers.add(new SubscriptionHandler(this.mTarget, method, Action.Updated, storableType.value()));
-        }
+        add(Action.Updated, method, type);
     }
 
     public void visitRemovedSubscription(Method method, Class<?> type) {
-        UpsightStorableType storableType = (UpsightStorableType) type.getAnnotation(UpsightStorableType.class);
-        if (storableType != null) {
-            this.mHandlers.add(new SubscriptionHandler(this.mTarget, method, Action.Removed, storableType.value()));
+        add(Action.Removed, method, type);
+    }
+
+    public SubscriptionTable getTable() {
+        Map<String, SubscriptionHandler[]>[] table = new Map[this.mHandlers.length];
+        for (int i = 0; i < this.mHandlers.length; i++) {
+            table[i] = new HashMap();
+            for (Entry<String, List<SubscriptionHandler>> entry : this.mHandlers[i].entrySet()) {
+                List<SubscriptionHandler> handlers = (List) entry.getValue();
+                table[i].put(entry.getKey(), (SubscriptionHandler[]) handlers.toArray(new SubscriptionHandler[handlers.size()]));
+            }
         }
+        return new SubscriptionTable(table);
     }
 
-    public Set<SubscriptionHandler> getHandlers() {
-        return new HashSet(this.mHandlers);
+    private void add(Action action, Method method, Class<?> type) {
+        UpsightStorableType storableType = (UpsightStorableType) type.getAnnotation(UpsightStorableType.class);
+        if (storableType != null) {
+            Map<String, List<SubscriptionHandler>> byType = this.mHandlers[action.ordinal()];
+            List<SubscriptionHandler> handlers = (List) byType.get(storableType.value());
+            if (handlers == null) {
+                handlers = new ArrayList();
+                byType.put(storableType.value(), handlers);
+            }
+            handlers.add(new SubscriptionHandler(method));
+        }
     }
 }
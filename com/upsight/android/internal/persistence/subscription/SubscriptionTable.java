@@ -0,0 +1,36 @@
+package com.upsight.android.internal.persistence.subscription;
+
+import com.upsight.android.internal.persistence.subscription.DataStoreEvent.Action;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The subscription methods of one subscriber class, indexed by action and storable type. Tables
+ * are read from the class annotations once and shared by every subscriber of that class, so an
+ * event costs one array index and one hash lookup no matter how many handlers the class declares.
+ */
+class SubscriptionTable {
+    private static final SubscriptionHandler[] NO_HANDLERS = new SubscriptionHandler[0];
+    private static final Map<Class<?>, SubscriptionTable> sTables = new ConcurrentHashMap();
+    private final Map<String, SubscriptionHandler[]>[] mHandlers;
+
+    SubscriptionTable(Map<String, SubscriptionHandler[]>[] handlers) {
+        this.mHandlers = handlers;
+    }
+
+    static SubscriptionTable forClass(Class<?> clazz) {
+        SubscriptionTable table = (SubscriptionTable) sTables.get(clazz);
+        if (table == null) {
+            SubscriptionHandlerVisitor visitor = new SubscriptionHandlerVisitor();
+            new ClassSubscriptionReader(clazz).accept(visitor);
+            table = visitor.getTable();
+            sTables.put(clazz, table);
+        }
+        return table;
+    }
+
+    SubscriptionHandler[] getHandlers(Action action, String type) {
+        SubscriptionHandler[] handlers = type != null ? (SubscriptionHandler[]) this.mHandlers[action.ordinal()].get(type) : null;
+        return handlers != null ? handlers : NO_HANDLERS;
+    }
+}
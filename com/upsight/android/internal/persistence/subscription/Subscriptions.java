@@ -76,9 +76,7 @@ public class Subscriptions {
     }
 
     public static AnnotatedSubscriber create(Object target) {
-        SubscriptionHandlerVisitor visitor = new SubscriptionHandlerVisitor(target);
-        new ClassSubscriptionReader(target.getClass()).accept(visitor);
-        return new AnnotatedSubscriber(visitor.getHandlers());
+        return new AnnotatedSubscriber(target, SubscriptionTable.forClass(target.getClass()));
     }
 
     private Subscriptions() {
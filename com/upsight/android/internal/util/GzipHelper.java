@@ -6,10 +6,13 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 public class GzipHelper {
+    private static final int BUFFER_SIZE = 8192;
+
     public static byte[] compress(String data) throws IOException {
         if (data == null) {
             return null;
@@ -17,11 +20,19 @@ public class GzipHelper {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
         GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(out));
         try {
-            gzip.write(data.getBytes());
-            return out.toByteArray();
+            gzip.write(data.getBytes("UTF-8"));
         } finally {
             gzip.close();
         }
+        return out.toByteArray();
+    }
+
+    /**
+     * Wraps {@code out} so that everything written is compressed on the fly. Closing the returned
+     * stream writes the gzip trailer and closes {@code out}.
+     */
+    public static OutputStream compress(OutputStream out) throws IOException {
+        return new GZIPOutputStream(out, BUFFER_SIZE);
     }
 
     public static String decompress(byte[] data) throws IOException {
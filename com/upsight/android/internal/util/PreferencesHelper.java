@@ -3,6 +3,8 @@ package com.upsight.android.internal.util;
 import android.content.Context;
 import android.content.SharedPreferences.Editor;
 import android.content.SharedPreferences.OnSharedPreferenceChangeListener;
+import java.util.HashMap;
+import java.util.Map;
 
 public final class PreferencesHelper {
     public static final String INSTALL_TIMESTAMP_NAME = "install_ts";
@@ -42,6 +44,15 @@ public final class PreferencesHelper {
         edit.apply();
     }
 
+    /**
+     * Like {@link #putLong}, but writes the value to disk before returning.
+     */
+    public static boolean commitLong(Context context, String key, long value) {
+        Editor edit = context.getSharedPreferences(SHARED_PREFERENCES_NAME, 0).edit();
+        edit.putLong(key, value);
+        return edit.commit();
+    }
+
     public static boolean getBoolean(Context context, String key, boolean defaultValue) {
         return context.getSharedPreferences(SHARED_PREFERENCES_NAME, 0).getBoolean(key, defaultValue);
     }
@@ -62,6 +73,34 @@ public final class PreferencesHelper {
         edit.apply();
     }
 
+    /**
+     * Writes the given ints in one edit; a null value removes its key.
+     */
+    public static void putInts(Context context, Map<String, Integer> values) {
+        Editor edit = context.getSharedPreferences(SHARED_PREFERENCES_NAME, 0).edit();
+        for (Map.Entry<String, Integer> entry : values.entrySet()) {
+            if (entry.getValue() == null) {
+                edit.remove((String) entry.getKey());
+            } else {
+                edit.putInt((String) entry.getKey(), ((Integer) entry.getValue()).intValue());
+            }
+        }
+        edit.apply();
+    }
+
+    /**
+     * Returns the entries whose keys start with {@code prefix}.
+     */
+    public static Map<String, ?> getAll(Context context, String prefix) {
+        Map<String, Object> result = new HashMap();
+        for (Map.Entry<String, ?> entry : context.getSharedPreferences(SHARED_PREFERENCES_NAME, 0).getAll().entrySet()) {
+            if (((String) entry.getKey()).startsWith(prefix)) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
     public static void clear(Context context, String key) {
         Editor edit = context.getSharedPreferences(SHARED_PREFERENCES_NAME, 0).edit();
         edit.remove(key);
@@ -9,31 +9,45 @@ import com.upsight.android.managedvariables.type.UpsightManagedInt;
 import com.upsight.android.managedvariables.type.UpsightManagedString;
 import com.upsight.android.managedvariables.type.UpsightManagedVariable.Listener;
 import com.upsight.android.persistence.UpsightDataStore;
+import com.upsight.android.persistence.UpsightDataStoreListener;
 import com.upsight.android.persistence.UpsightSubscription;
 import com.upsight.android.persistence.annotation.Created;
 import com.upsight.android.persistence.annotation.Removed;
 import com.upsight.android.persistence.annotation.Updated;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 import rx.Observable;
 import rx.Scheduler;
 import rx.functions.Action1;
 import rx.functions.Func1;
 
+/**
+ * Hands out managed variables by tag. All stored values are loaded into an immutable snapshot
+ * once at startup and then kept current from the data store's created/updated/removed events.
+ * Writers replace the snapshot (and the variable cache) under a lock; readers only dereference
+ * the volatile maps, so a fetch never waits on another fetch or on the content provider.
+ */
 public class ManagedVariableManager {
+    private static final Object REMOVED;
     private static final Map<Class<? extends ManagedVariable>, Class<? extends ManagedVariableModel>> sModelMap;
-    private final Map<String, ManagedVariable> mCache;
+    private volatile Map<String, ManagedVariable> mCache;
     private Scheduler mCallbackScheduler;
     private UpsightDataStore mDataStore;
+    private final Map<Class<?>, Map<String, Object>> mPendingUpdates;
+    private volatile Map<Class<?>, Map<String, Object>> mSnapshot;
     private UxmSchema mUxmSchema;
+    private final Object mWriteLock;
 
     /* renamed from: com.upsight.android.managedvariables.internal.type.ManagedVariableManager.1 */
     static class C09291 extends HashMap<Class<? extends ManagedVariable>, Class<? extends ManagedVariableModel>> {
         C09291() {
-            put(UpsightManagedString.class, Model.class);
-            put(UpsightManagedBoolean.class, Model.class);
-            put(UpsightManagedInt.class, Model.class);
-            put(UpsightManagedFloat.class, Model.class);
+            put(UpsightManagedString.class, ManagedString.Model.class);
+            put(UpsightManagedBoolean.class, ManagedBoolean.Model.class);
+            put(UpsightManagedInt.class, ManagedInt.Model.class);
+            put(UpsightManagedFloat.class, ManagedFloat.Model.class);
         }
     }
 
@@ -63,19 +77,11 @@ public class ManagedVariableManager {
         }
 
         public void call(ManagedVariableModel model) {
-            synchronized (ManagedVariableManager.this.mCache) {
-                ManagedVariable cachedVariable = (ManagedVariable) ManagedVariableManager.this.mCache.get(this.val$tag);
-                if (cachedVariable != null) {
-                    this.val$listener.onSuccess(cachedVariable);
-                } else {
-                    T managedVariable = ManagedVariableManager.this.fromModel(this.val$clazz, this.val$tag, model);
-                    if (managedVariable != null) {
-                        ManagedVariableManager.this.mCache.put(this.val$tag, managedVariable);
-                        this.val$listener.onSuccess(managedVariable);
-                    } else {
-                        this.val$listener.onFailure(new UpsightException("Invalid managed variable tag", new Object[0]));
-                    }
-                }
+            ManagedVariable managedVariable = ManagedVariableManager.this.getOrCreate(this.val$clazz, this.val$tag, model != null ? model.getValue() : null);
+            if (managedVariable != null) {
+                this.val$listener.onSuccess(managedVariable);
+            } else {
+                this.val$listener.onFailure(new UpsightException("Invalid managed variable tag", new Object[0]));
             }
         }
     }
@@ -108,88 +114,107 @@ public class ManagedVariableManager {
         }
     }
 
+    private class SnapshotLoader implements UpsightDataStoreListener<Set<ManagedVariableModel>> {
+        private final Class<? extends ManagedVariable> mClass;
+
+        SnapshotLoader(Class<? extends ManagedVariable> clazz) {
+            this.mClass = clazz;
+        }
+
+        public void onSuccess(Set<ManagedVariableModel> models) {
+            ManagedVariableManager.this.installSnapshot(this.mClass, models);
+        }
+
+        /**
+         * Leaves the class unloaded, so fetches keep falling back to the data store.
+         */
+        public void onFailure(UpsightException exception) {
+        }
+    }
+
     static {
+        REMOVED = new Object();
         sModelMap = new C09291();
     }
 
     ManagedVariableManager(Scheduler callbackScheduler, UpsightDataStore dataStore, UxmSchema uxmSchema) {
-        this.mCache = new HashMap();
+        this.mCache = Collections.emptyMap();
+        this.mSnapshot = Collections.emptyMap();
+        this.mPendingUpdates = new HashMap();
+        this.mWriteLock = new Object();
         this.mCallbackScheduler = callbackScheduler;
         this.mDataStore = dataStore;
         this.mUxmSchema = uxmSchema;
         dataStore.subscribe(this);
+        for (Entry<Class<? extends ManagedVariable>, Class<? extends ManagedVariableModel>> entry : sModelMap.entrySet()) {
+            dataStore.fetch((Class) entry.getValue(), new SnapshotLoader((Class) entry.getKey()));
+        }
     }
 
     public <T extends ManagedVariable> T fetch(Class<T> clazz, String tag) {
-        T managedVariable;
-        synchronized (this.mCache) {
-            T cachedVariable = (ManagedVariable) this.mCache.get(tag);
-            if (cachedVariable != null) {
-                managedVariable = cachedVariable;
-            } else {
-                managedVariable = fromModel(clazz, tag, (ManagedVariableModel) fetchDataStoreObservable(clazz, tag).toBlocking().first());
-                if (managedVariable != null) {
-                    this.mCache.put(tag, managedVariable);
-                }
-            }
+        ManagedVariable cachedVariable = (ManagedVariable) this.mCache.get(tag);
+        if (cachedVariable != null) {
+            return cachedVariable;
         }
-        return managedVariable;
+        if (this.mSnapshot.containsKey(clazz)) {
+            return getOrCreate(clazz, tag, null);
+        }
+        ManagedVariableModel model = (ManagedVariableModel) fetchDataStoreObservable(clazz, tag).toBlocking().first();
+        return getOrCreate(clazz, tag, model != null ? model.getValue() : null);
     }
 
     public <T extends ManagedVariable> UpsightSubscription fetch(Class<T> clazz, String tag, Listener<T> listener) {
-        UpsightSubscription subscription;
-        synchronized (this.mCache) {
-            ManagedVariable cachedVariable = (ManagedVariable) this.mCache.get(tag);
-            if (cachedVariable != null) {
-                subscription = Subscriptions.from(Observable.just(cachedVariable).observeOn(this.mCallbackScheduler).subscribe(new C09302(listener)));
-            } else {
-                subscription = Subscriptions.from(fetchDataStoreObservable(clazz, tag).subscribe(new C09313(tag, listener, clazz), new C09324(listener)));
-            }
+        ManagedVariable cachedVariable = (ManagedVariable) this.mCache.get(tag);
+        if (cachedVariable == null && this.mSnapshot.containsKey(clazz)) {
+            cachedVariable = getOrCreate(clazz, tag, null);
+        }
+        if (cachedVariable != null) {
+            return Subscriptions.from(Observable.just(cachedVariable).observeOn(this.mCallbackScheduler).subscribe(new C09302(listener)));
         }
-        return subscription;
+        return Subscriptions.from(fetchDataStoreObservable(clazz, tag).subscribe(new C09313(tag, listener, clazz), new C09324(listener)));
     }
 
     @Created
     @Updated
-    public void handleManagedVariableUpdate(Model model) {
+    public void handleManagedVariableUpdate(ManagedString.Model model) {
         updateValue(UpsightManagedString.class, model.getTag(), model.getValue());
     }
 
     @Created
     @Updated
-    public void handleManagedVariableUpdate(Model model) {
+    public void handleManagedVariableUpdate(ManagedBoolean.Model model) {
         updateValue(UpsightManagedBoolean.class, model.getTag(), model.getValue());
     }
 
     @Created
     @Updated
-    public void handleManagedVariableUpdate(Model model) {
+    public void handleManagedVariableUpdate(ManagedInt.Model model) {
         updateValue(UpsightManagedInt.class, model.getTag(), model.getValue());
     }
 
     @Created
     @Updated
-    public void handleManagedVariableUpdate(Model model) {
+    public void handleManagedVariableUpdate(ManagedFloat.Model model) {
         updateValue(UpsightManagedFloat.class, model.getTag(), model.getValue());
     }
 
     @Removed
-    public void handleManagedVariableRemoval(Model model) {
+    public void handleManagedVariableRemoval(ManagedString.Model model) {
         resetValue(UpsightManagedString.class, model.getTag());
     }
 
     @Removed
-    public void handleManagedVariableRemoval(Model model) {
+    public void handleManagedVariableRemoval(ManagedBoolean.Model model) {
         resetValue(UpsightManagedBoolean.class, model.getTag());
     }
 
     @Removed
-    public void handleManagedVariableRemoval(Model model) {
+    public void handleManagedVariableRemoval(ManagedInt.Model model) {
         resetValue(UpsightManagedInt.class, model.getTag());
     }
 
     @Removed
-    public void handleManagedVariableRemoval(Model model) {
+    public void handleManagedVariableRemoval(ManagedFloat.Model model) {
         resetValue(UpsightManagedFloat.class, model.getTag());
     }
 
@@ -197,43 +222,96 @@ public class ManagedVariableManager {
         return this.mDataStore.fetchObservable((Class) sModelMap.get(clazz)).filter(new C09335(clazz, tag)).defaultIfEmpty(null);
     }
 
-    private <T extends ManagedVariable> T fromModel(Class<T> clazz, String tag, ManagedVariableModel model) {
-        T t = null;
-        T managedVariable = null;
+    /**
+     * Returns the cached variable for {@code tag}, creating it from the snapshot value when its
+     * class is loaded and from {@code fetchedValue} otherwise. Returns null for unknown tags.
+     */
+    private <T extends ManagedVariable> T getOrCreate(Class<T> clazz, String tag, Object fetchedValue) {
+        synchronized (this.mWriteLock) {
+            ManagedVariable cachedVariable = (ManagedVariable) this.mCache.get(tag);
+            if (cachedVariable != null) {
+                return cachedVariable;
+            }
+            Map<String, Object> values = (Map) this.mSnapshot.get(clazz);
+            T managedVariable = fromValue(clazz, tag, values != null ? values.get(tag) : fetchedValue);
+            if (managedVariable != null) {
+                Map<String, ManagedVariable> cache = new HashMap(this.mCache);
+                cache.put(tag, managedVariable);
+                this.mCache = cache;
+            }
+            return managedVariable;
+        }
+    }
+
+    private <T extends ManagedVariable> T fromValue(Class<T> clazz, String tag, Object value) {
         BaseSchema schemaObject = this.mUxmSchema.get(clazz, tag);
         if (schemaObject == null) {
             return null;
         }
+        ManagedVariable managedVariable = null;
         if (UpsightManagedString.class.equals(clazz)) {
-            String defaultValue = schemaObject.defaultValue;
-            if (model != null) {
-                t = model.getValue();
-            }
-            managedVariable = new ManagedString(tag, defaultValue, (String) t);
+            managedVariable = new ManagedString(tag, (String) schemaObject.defaultValue, (String) value);
         } else if (UpsightManagedBoolean.class.equals(clazz)) {
-            Boolean defaultValue2 = schemaObject.defaultValue;
-            if (model != null) {
-                t = model.getValue();
-            }
-            managedVariable = new ManagedBoolean(tag, defaultValue2, (Boolean) t);
+            managedVariable = new ManagedBoolean(tag, (Boolean) schemaObject.defaultValue, (Boolean) value);
         } else if (UpsightManagedInt.class.equals(clazz)) {
-            Integer defaultValue3 = schemaObject.defaultValue;
-            if (model != null) {
-                t = model.getValue();
-            }
-            managedVariable = new ManagedInt(tag, defaultValue3, (Integer) t);
+            managedVariable = new ManagedInt(tag, (Integer) schemaObject.defaultValue, (Integer) value);
         } else if (UpsightManagedFloat.class.equals(clazz)) {
-            Float defaultValue4 = schemaObject.defaultValue;
-            if (model != null) {
-                t = model.getValue();
-            }
-            managedVariable = new ManagedFloat(tag, defaultValue4, (Float) t);
+            managedVariable = new ManagedFloat(tag, (Float) schemaObject.defaultValue, (Float) value);
         }
         return managedVariable;
     }
 
+    private void installSnapshot(Class<? extends ManagedVariable> clazz, Set<ManagedVariableModel> models) {
+        synchronized (this.mWriteLock) {
+            Map<String, Object> values = new HashMap(models.size());
+            for (ManagedVariableModel model : models) {
+                values.put(model.getTag(), model.getValue());
+            }
+            Map<String, Object> pending = (Map) this.mPendingUpdates.remove(clazz);
+            if (pending != null) {
+                for (Entry<String, Object> update : pending.entrySet()) {
+                    if (update.getValue() == REMOVED) {
+                        values.remove(update.getKey());
+                    } else {
+                        values.put(update.getKey(), update.getValue());
+                    }
+                }
+            }
+            Map<Class<?>, Map<String, Object>> snapshot = new HashMap(this.mSnapshot);
+            snapshot.put(clazz, values);
+            this.mSnapshot = snapshot;
+        }
+    }
+
+    /**
+     * Records a stored value change in the snapshot, or queues it for the snapshot when the
+     * class has not finished loading yet so the load cannot overwrite it with an older value.
+     */
+    private void putSnapshotValue(Class<?> clazz, String tag, Object value) {
+        Map<String, Object> values = (Map) this.mSnapshot.get(clazz);
+        if (values == null) {
+            Map<String, Object> pending = (Map) this.mPendingUpdates.get(clazz);
+            if (pending == null) {
+                pending = new HashMap();
+                this.mPendingUpdates.put(clazz, pending);
+            }
+            pending.put(tag, value);
+            return;
+        }
+        Map<String, Object> updated = new HashMap(values);
+        if (value == REMOVED) {
+            updated.remove(tag);
+        } else {
+            updated.put(tag, value);
+        }
+        Map<Class<?>, Map<String, Object>> snapshot = new HashMap(this.mSnapshot);
+        snapshot.put(clazz, updated);
+        this.mSnapshot = snapshot;
+    }
+
     private <T extends ManagedVariable> void updateValue(Class<T> clazz, String tag, Object value) {
-        synchronized (this.mCache) {
+        synchronized (this.mWriteLock) {
+            putSnapshotValue(clazz, tag, value);
             ManagedVariable managedVariable = (ManagedVariable) this.mCache.get(tag);
             if (managedVariable != null && clazz.isInstance(managedVariable)) {
                 managedVariable.set(value);
@@ -242,7 +320,8 @@ public class ManagedVariableManager {
     }
 
     private <T extends ManagedVariable> void resetValue(Class<T> clazz, String tag) {
-        synchronized (this.mCache) {
+        synchronized (this.mWriteLock) {
+            putSnapshotValue(clazz, tag, REMOVED);
             ManagedVariable managedVariable = (ManagedVariable) this.mCache.get(tag);
             if (managedVariable != null && clazz.isInstance(managedVariable)) {
                 managedVariable.set(null);
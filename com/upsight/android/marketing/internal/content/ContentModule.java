@@ -24,7 +24,8 @@ public final class ContentModule {
     @Singleton
     @Provides
     MarketingContentStoreImpl provideMarketingContentStoreImpl(UpsightContext upsight) {
-        return new MarketingContentStoreImpl(upsight.getCoreComponent().bus(), ((UpsightAnalyticsComponent) ((UpsightAnalyticsExtension) upsight.getUpsightExtension(UpsightAnalyticsExtension.EXTENSION_NAME)).getComponent()).clock());
+        UpsightCoreComponent coreComponent = upsight.getCoreComponent();
+        return new MarketingContentStoreImpl(coreComponent.bus(), ((UpsightAnalyticsComponent) ((UpsightAnalyticsExtension) upsight.getUpsightExtension(UpsightAnalyticsExtension.EXTENSION_NAME)).getComponent()).clock(), coreComponent.subscribeOnScheduler().createWorker());
     }
 
     @Singleton
@@ -6,125 +6,224 @@ import com.upsight.android.analytics.internal.session.Clock;
 import com.upsight.android.marketing.UpsightMarketingContentStore;
 import com.upsight.android.marketing.internal.content.MarketingContent.ScopedAvailabilityEvent;
 import com.upsight.android.marketing.internal.content.MarketingContent.ScopelessAvailabilityEvent;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import rx.Scheduler.Worker;
+import rx.functions.Action0;
 
+/**
+ * Holds marketing content until it is shown, removed, evicted or expired.
+ *
+ * Reads ({@link #get}, {@link #getIdsForScope}, {@link #isContentReady}) do not lock: the content
+ * and timestamp maps are concurrent and every scope maps to an immutable set that writers replace.
+ * Writes are serialized. Content id to scope and parent indexes keep removal proportional to the
+ * number of places the content was offered. At most {@link #MAX_CONTENT_COUNT} entries are held,
+ * the least recently stored one making room, and a timer wheel ticking on the given worker drops
+ * entries once they are {@link #DEFAULT_TIME_TO_LIVE_MS} old even if nobody asks for them.
+ */
 class MarketingContentStoreImpl extends UpsightMarketingContentStore implements MarketingContentStore {
     public static final long DEFAULT_TIME_TO_LIVE_MS = 600000;
+    static final int MAX_CONTENT_COUNT = 32;
+    private static final int WHEEL_SLOTS = 10;
+    private static final long WHEEL_TICK_MS = DEFAULT_TIME_TO_LIVE_MS / WHEEL_SLOTS;
     private Bus mBus;
     private Clock mClock;
     private final Map<String, MarketingContent> mContentMap;
+    private final Set<String> mInsertionOrder;
+    private long mLastTick;
     private final Map<String, String> mParentEligibilityMap;
+    private final Map<String, Set<String>> mParentsById;
     private final Map<String, Set<String>> mScopeEligibilityMap;
+    private final Map<String, Set<String>> mScopesById;
+    private final Action0 mTick;
+    private boolean mTickScheduled;
     private final Map<String, Long> mTimestamps;
+    private final Set<String>[] mWheel;
+    private final Worker mWorker;
 
-    public MarketingContentStoreImpl(Bus bus, Clock clock) {
-        this.mTimestamps = new HashMap();
-        this.mContentMap = new HashMap();
-        this.mScopeEligibilityMap = new HashMap();
+    private class ExpiryTick implements Action0 {
+        private ExpiryTick() {
+        }
+
+        public void call() {
+            MarketingContentStoreImpl.this.onTick();
+        }
+    }
+
+    public MarketingContentStoreImpl(Bus bus, Clock clock, Worker worker) {
+        this.mTimestamps = new ConcurrentHashMap();
+        this.mContentMap = new ConcurrentHashMap();
+        this.mScopeEligibilityMap = new ConcurrentHashMap();
         this.mParentEligibilityMap = new HashMap();
+        this.mInsertionOrder = new LinkedHashSet();
+        this.mScopesById = new HashMap();
+        this.mParentsById = new HashMap();
+        this.mWheel = new Set[WHEEL_SLOTS];
+        for (int i = 0; i < WHEEL_SLOTS; i++) {
+            this.mWheel[i] = new HashSet();
+        }
+        this.mTick = new ExpiryTick();
         this.mBus = bus;
         this.mClock = clock;
+        this.mWorker = worker;
+        this.mLastTick = clock.currentTimeMillis() / WHEEL_TICK_MS;
     }
 
     public synchronized boolean put(String id, MarketingContent content) {
-        boolean isAdded;
-        isAdded = false;
-        if (!(TextUtils.isEmpty(id) || content == null)) {
-            this.mContentMap.put(id, content);
-            this.mTimestamps.put(id, Long.valueOf(this.mClock.currentTimeMillis()));
-            isAdded = true;
-        }
-        return isAdded;
+        if (TextUtils.isEmpty(id) || content == null) {
+            return false;
+        }
+        long now = this.mClock.currentTimeMillis();
+        this.mContentMap.put(id, content);
+        this.mTimestamps.put(id, Long.valueOf(now));
+        this.mInsertionOrder.remove(id);
+        this.mInsertionOrder.add(id);
+        scheduleExpiry(id, now + DEFAULT_TIME_TO_LIVE_MS);
+        while (this.mInsertionOrder.size() > MAX_CONTENT_COUNT) {
+            remove((String) this.mInsertionOrder.iterator().next());
+        }
+        return true;
     }
 
-    public synchronized MarketingContent get(String id) {
-        MarketingContent marketingContent;
-        Long timestamp = (Long) this.mTimestamps.get(id);
-        if (timestamp == null || this.mClock.currentTimeMillis() > timestamp.longValue() + DEFAULT_TIME_TO_LIVE_MS) {
-            remove(id);
-            marketingContent = null;
-        } else {
-            marketingContent = (MarketingContent) this.mContentMap.get(id);
+    public MarketingContent get(String id) {
+        Long timestamp = id != null ? (Long) this.mTimestamps.get(id) : null;
+        if (timestamp != null && this.mClock.currentTimeMillis() <= timestamp.longValue() + DEFAULT_TIME_TO_LIVE_MS) {
+            return (MarketingContent) this.mContentMap.get(id);
         }
-        return marketingContent;
+        remove(id);
+        return null;
     }
 
+    /**
+     * Removes the content and drops every scope it was offered in whole, along with the rest of
+     * that scope's content.
+     */
     public synchronized boolean remove(String id) {
-        boolean isRemoved;
-        isRemoved = false;
-        if (!TextUtils.isEmpty(id)) {
-            isRemoved = this.mContentMap.remove(id) != null;
-            if (isRemoved) {
-                Iterator<String> eligibleIdsItr = this.mScopeEligibilityMap.keySet().iterator();
-                while (eligibleIdsItr.hasNext()) {
-                    Set<String> ids = (Set) this.mScopeEligibilityMap.get((String) eligibleIdsItr.next());
-                    if (ids != null && ids.contains(id)) {
-                        eligibleIdsItr.remove();
-                    }
+        if (TextUtils.isEmpty(id) || this.mContentMap.remove(id) == null) {
+            return false;
+        }
+        this.mTimestamps.remove(id);
+        this.mInsertionOrder.remove(id);
+        Set<String> scopes = (Set) this.mScopesById.remove(id);
+        if (scopes != null) {
+            for (String scope : scopes) {
+                Set<String> ids = (Set) this.mScopeEligibilityMap.get(scope);
+                if (ids != null && ids.contains(id)) {
+                    this.mScopeEligibilityMap.remove(scope);
                 }
-                Iterator<String> childIdMapItr = this.mParentEligibilityMap.keySet().iterator();
-                while (childIdMapItr.hasNext()) {
-                    String parentId = (String) childIdMapItr.next();
-                    String childId = (String) this.mParentEligibilityMap.get(parentId);
-                    if (id.equals(parentId) || id.equals(childId)) {
-                        childIdMapItr.remove();
-                    }
+            }
+        }
+        this.mParentEligibilityMap.remove(id);
+        Set<String> parentIds = (Set) this.mParentsById.remove(id);
+        if (parentIds != null) {
+            for (String parentId : parentIds) {
+                if (id.equals(this.mParentEligibilityMap.get(parentId))) {
+                    this.mParentEligibilityMap.remove(parentId);
                 }
-                this.mTimestamps.remove(id);
             }
         }
-        return isRemoved;
+        return true;
     }
 
-    public synchronized Set<String> getIdsForScope(String scope) {
-        Set<String> ids;
-        ids = (Set) this.mScopeEligibilityMap.get(scope);
-        if (ids == null) {
-            ids = new HashSet();
-        }
-        return ids;
+    public Set<String> getIdsForScope(String scope) {
+        Set<String> ids = scope != null ? (Set) this.mScopeEligibilityMap.get(scope) : null;
+        return ids != null ? ids : Collections.<String>emptySet();
     }
 
     public synchronized boolean presentScopedContent(String id, String[] scopes) {
-        boolean z;
-        MarketingContent content = (MarketingContent) this.mContentMap.get(id);
+        MarketingContent content = id != null ? (MarketingContent) this.mContentMap.get(id) : null;
         if (content == null || scopes == null || scopes.length <= 0) {
-            z = false;
-        } else {
-            for (String scope : scopes) {
-                Set<String> ids = (Set) this.mScopeEligibilityMap.get(scope);
-                if (ids != null) {
-                    ids.add(id);
-                } else {
-                    ids = new HashSet();
-                    ids.add(id);
-                    this.mScopeEligibilityMap.put(scope, ids);
-                }
+            return false;
+        }
+        Set<String> indexed = (Set) this.mScopesById.get(id);
+        if (indexed == null) {
+            indexed = new HashSet();
+            this.mScopesById.put(id, indexed);
+        }
+        for (String scope : scopes) {
+            Set<String> ids = (Set) this.mScopeEligibilityMap.get(scope);
+            if (ids == null || !ids.contains(id)) {
+                Set<String> added = ids != null ? new HashSet(ids) : new HashSet();
+                added.add(id);
+                this.mScopeEligibilityMap.put(scope, Collections.unmodifiableSet(added));
             }
-            content.markPresentable(new ScopedAvailabilityEvent(id, scopes), this.mBus);
-            z = true;
+            indexed.add(scope);
         }
-        return z;
+        content.markPresentable(new ScopedAvailabilityEvent(id, scopes), this.mBus);
+        return true;
     }
 
     public synchronized boolean presentScopelessContent(String id, String parentId) {
-        boolean z;
-        MarketingContent content = (MarketingContent) this.mContentMap.get(id);
+        MarketingContent content = id != null ? (MarketingContent) this.mContentMap.get(id) : null;
         if (content == null || TextUtils.isEmpty(parentId)) {
-            z = false;
-        } else {
-            this.mParentEligibilityMap.put(parentId, id);
-            content.markPresentable(new ScopelessAvailabilityEvent(id, parentId), this.mBus);
-            z = true;
+            return false;
         }
-        return z;
+        this.mParentEligibilityMap.put(parentId, id);
+        Set<String> parentIds = (Set) this.mParentsById.get(id);
+        if (parentIds == null) {
+            parentIds = new HashSet();
+            this.mParentsById.put(id, parentIds);
+        }
+        parentIds.add(parentId);
+        content.markPresentable(new ScopelessAvailabilityEvent(id, parentId), this.mBus);
+        return true;
     }
 
-    public synchronized boolean isContentReady(String scope) {
+    public boolean isContentReady(String scope) {
         return !getIdsForScope(scope).isEmpty();
     }
+
+    /**
+     * Files the id under the wheel slot of the tick at which it expires. A refreshed id is left in
+     * its old slot too; the tick skips it there because its timestamp moved on.
+     */
+    private void scheduleExpiry(String id, long expiresAt) {
+        this.mWheel[(int) (expiryTick(expiresAt) % WHEEL_SLOTS)].add(id);
+        scheduleTick(this.mClock.currentTimeMillis());
+    }
+
+    private void scheduleTick(long now) {
+        if (!this.mTickScheduled) {
+            this.mTickScheduled = true;
+            this.mWorker.schedule(this.mTick, WHEEL_TICK_MS - (now % WHEEL_TICK_MS), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private synchronized void onTick() {
+        this.mTickScheduled = false;
+        long now = this.mClock.currentTimeMillis();
+        long currentTick = now / WHEEL_TICK_MS;
+        for (long tick = Math.max(this.mLastTick + 1, currentTick - (WHEEL_SLOTS - 1)); tick <= currentTick; tick++) {
+            Set<String> slot = this.mWheel[(int) (tick % WHEEL_SLOTS)];
+            if (!slot.isEmpty()) {
+                String[] ids = (String[]) slot.toArray(new String[slot.size()]);
+                slot.clear();
+                for (String id : ids) {
+                    Long timestamp = (Long) this.mTimestamps.get(id);
+                    if (timestamp != null) {
+                        long expiresAt = timestamp.longValue() + DEFAULT_TIME_TO_LIVE_MS;
+                        if (now >= expiresAt) {
+                            remove(id);
+                        } else {
+                            this.mWheel[(int) (expiryTick(expiresAt) % WHEEL_SLOTS)].add(id);
+                        }
+                    }
+                }
+            }
+        }
+        this.mLastTick = currentTick;
+        if (!this.mContentMap.isEmpty()) {
+            scheduleTick(now);
+        }
+    }
+
+    private static long expiryTick(long expiresAt) {
+        return ((expiresAt + WHEEL_TICK_MS) - 1) / WHEEL_TICK_MS;
+    }
 }
@@ -1,5 +1,6 @@
 package com.upsight.android.persistence;
 
+import java.util.Collection;
 import java.util.Set;
 import rx.Observable;
 
@@ -20,6 +21,10 @@ public interface UpsightDataStore {
 
     <T> UpsightSubscription remove(T t, UpsightDataStoreListener<T> upsightDataStoreListener);
 
+    <T> UpsightSubscription removeAll(Collection<T> collection, UpsightDataStoreListener<Set<T>> upsightDataStoreListener);
+
+    <T> Observable<T> removeAllObservable(Collection<T> collection);
+
     <T> Observable<T> removeObservable(Class<T> cls, String... strArr);
 
     <T> Observable<T> removeObservable(T t);
@@ -30,6 +35,10 @@ public interface UpsightDataStore {
 
     <T> UpsightSubscription store(T t, UpsightDataStoreListener<T> upsightDataStoreListener);
 
+    <T> UpsightSubscription storeAll(Collection<T> collection, UpsightDataStoreListener<Set<T>> upsightDataStoreListener);
+
+    <T> Observable<T> storeAllObservable(Collection<T> collection);
+
     <T> Observable<T> storeObservable(T t);
 
     UpsightSubscription subscribe(Object obj);
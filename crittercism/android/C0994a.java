@@ -1,7 +1,6 @@
 package crittercism.android;
 
 import com.crittercism.app.CrittercismConfig;
-import java.util.List;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
@@ -10,18 +9,17 @@ import org.json.JSONObject;
 public final class C0994a {
     JSONObject f276a;
 
-    public static C0994a m227a(au auVar, List list) {
+    public static C0994a m227a(au auVar, JSONArray jSONArray) {
         try {
-            return new C0994a(auVar, list);
+            return new C0994a(auVar, jSONArray);
         } catch (JSONException e) {
             dx.m754b("Unable to generate APM request's JSON: " + e);
             return null;
         }
     }
 
-    private C0994a(au auVar, List list) {
+    private C0994a(au auVar, JSONArray jSONArray4) {
         this.f276a = new JSONObject();
-        list.size();
         JSONArray jSONArray = new JSONArray();
         JSONArray jSONArray2 = new JSONArray();
         jSONArray2.put(auVar.m334a());
@@ -39,11 +37,7 @@ public final class C0994a {
         jSONArray2.put(auVar.m340g());
         jSONArray2.put(auVar.m341h());
         jSONArray.put(jSONArray2);
-        JSONArray jSONArray3 = new JSONArray();
-        for (C1050c d : list) {
-            jSONArray3.put(d.m645d());
-        }
-        jSONArray.put(jSONArray3);
+        jSONArray.put(jSONArray4);
         this.f276a.put("d", jSONArray);
     }
 }
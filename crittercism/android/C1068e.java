@@ -6,6 +6,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
 
 /* renamed from: crittercism.android.e */
 public final class C1068e {
@@ -13,6 +14,8 @@ public final class C1068e {
     final Set f770b;
     final Set f771c;
     private Executor f772d;
+    private volatile float f773e;
+    private final AtomicLong f774f;
 
     /* renamed from: crittercism.android.e.a */
     class C1067a implements Runnable {
@@ -70,6 +73,8 @@ public final class C1068e {
         this.f770b = new HashSet();
         this.f771c = new HashSet();
         this.f772d = executor;
+        this.f773e = 1.0f;
+        this.f774f = new AtomicLong();
         m763a(list);
         m764b(list2);
     }
@@ -107,7 +112,30 @@ public final class C1068e {
         if (!c1050c.f581b) {
             c1050c.f581b = true;
             c1050c.f582c = c1049a;
-            this.f772d.execute(new C1067a(c1050c, (byte) 0));
+            if (c1049a == C1049a.LOG_ENDPOINT || m766b()) {
+                this.f772d.execute(new C1067a(c1050c, (byte) 0));
+            }
+        }
+    }
+
+    public final void m765a(float f) {
+        this.f773e = Math.max(0.0f, Math.min(1.0f, f));
+    }
+
+    /**
+     * Keeps an even share of {@code f773e} of all samples by counting instead of drawing random
+     * numbers. A dropped sample never reaches the executor. Endpoints logged through the API are
+     * always kept.
+     */
+    private boolean m766b() {
+        float f = this.f773e;
+        if (f >= 1.0f) {
+            return true;
+        }
+        if (f <= 0.0f) {
+            return false;
         }
+        long andIncrement = this.f774f.getAndIncrement();
+        return ((long) (((double) (1 + andIncrement)) * ((double) f))) != ((long) (((double) andIncrement) * ((double) f)));
     }
 }
@@ -5,14 +5,13 @@ import android.util.Log;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.concurrent.TimeUnit;
+import org.json.JSONArray;
 import org.json.JSONObject;
 
 /* renamed from: crittercism.android.g */
 public final class C1071g implements C1007f, Runnable {
-    private List f795a;
+    private JSONArray f795a;
     private URL f796b;
     private long f797c;
     private ConditionVariable f798d;
@@ -28,7 +27,6 @@ public final class C1071g implements C1007f, Runnable {
     }
 
     private C1071g(au auVar, URL url, byte b) {
-        this.f795a = new LinkedList();
         this.f796b = null;
         this.f797c = System.currentTimeMillis();
         this.f798d = new ConditionVariable(false);
@@ -41,6 +39,7 @@ public final class C1071g implements C1007f, Runnable {
         this.f796b = url;
         this.f803i = 50;
         this.f804j = 10000;
+        this.f795a = new JSONArray();
     }
 
     public final void run() {
@@ -62,13 +61,13 @@ public final class C1071g implements C1007f, Runnable {
                         dx.m754b("Disabling APM due to failure instantiating connection");
                         return;
                     }
-                    List list;
+                    JSONArray jSONArray;
                     synchronized (this.f802h) {
-                        list = this.f795a;
-                        this.f795a = new LinkedList();
+                        jSONArray = this.f795a;
+                        this.f795a = new JSONArray();
                         this.f798d.close();
                     }
-                    C0994a a = C0994a.m227a(this.f799e, list);
+                    C0994a a = C0994a.m227a(this.f799e, jSONArray);
                     if (a == null) {
                         this.f801g = true;
                         dx.m754b("Disabling APM due to failure building request");
@@ -212,15 +211,21 @@ public final class C1071g implements C1007f, Runnable {
     }
 
     private boolean m776d() {
-        return !this.f801g && this.f795a.size() < this.f803i;
+        return !this.f801g && this.f795a.length() < this.f803i;
     }
 
+    /**
+     * Keeps the sample's upload row; the sample object itself is not held until the upload.
+     */
     public final void m779a(C1050c c1050c) {
         Object obj = null;
         if (m776d()) {
             synchronized (this.f802h) {
                 if (m776d()) {
-                    this.f795a.add(c1050c);
+                    JSONArray d = c1050c.m645d();
+                    if (d != null) {
+                        this.f795a.put(d);
+                    }
                     if (!c1050c.m631a().contains(this.f796b.getHost())) {
                         String str = c1050c.f585f;
                         if (str == null || !str.toLowerCase().equals("connect")) {
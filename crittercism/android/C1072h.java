@@ -12,12 +12,14 @@ public final class C1072h {
     public boolean f806b;
     public boolean f807c;
     public int f808d;
+    public float f809e;
 
     public C1072h(Context context) {
         this.f805a = false;
         this.f806b = false;
         this.f807c = false;
         this.f808d = 10;
+        this.f809e = 1.0f;
         if (C1072h.m780a(context).exists()) {
             this.f807c = true;
         }
@@ -28,6 +30,7 @@ public final class C1072h {
         this.f806b = false;
         this.f807c = false;
         this.f808d = 10;
+        this.f809e = 1.0f;
         if (jSONObject.has("net")) {
             try {
                 JSONObject jSONObject2 = jSONObject.getJSONObject("net");
@@ -35,6 +38,7 @@ public final class C1072h {
                 this.f806b = jSONObject2.optBoolean("persist", false);
                 this.f807c = jSONObject2.optBoolean("kill", false);
                 this.f808d = jSONObject2.optInt("interval", 10);
+                this.f809e = (float) Math.max(0.0d, Math.min(1.0d, jSONObject2.optDouble("sample_rate", 1.0d)));
             } catch (JSONException e) {
             }
         }
@@ -65,7 +69,7 @@ public final class C1072h {
         if (!this.f806b) {
             i2 = 1237;
         }
-        return ((i + i2) * 31) + this.f808d;
+        return ((((i + i2) * 31) + this.f808d) * 31) + Float.floatToIntBits(this.f809e);
     }
 
     public final boolean equals(Object obj) {
@@ -91,10 +95,13 @@ public final class C1072h {
         if (this.f808d != c1072h.f808d) {
             return false;
         }
+        if (Float.floatToIntBits(this.f809e) != Float.floatToIntBits(c1072h.f809e)) {
+            return false;
+        }
         return true;
     }
 
     public final String toString() {
-        return "OptmzConfiguration [\nisSendTaskEnabled=" + this.f805a + "\n, shouldPersist=" + this.f806b + "\n, isKilled=" + this.f807c + "\n, statisticsSendInterval=" + this.f808d + "]";
+        return "OptmzConfiguration [\nisSendTaskEnabled=" + this.f805a + "\n, shouldPersist=" + this.f806b + "\n, isKilled=" + this.f807c + "\n, statisticsSendInterval=" + this.f808d + "\n, sampleRate=" + this.f809e + "]";
     }
 }
@@ -60,6 +60,8 @@ public final class az implements au, aw, ax, C1007f {
     private at f366H;
     private boolean f367I;
     private String f368J;
+    public volatile ef f394K;
+    private eg f395L;
     public boolean f369b;
     public Context f370c;
     public final ConditionVariable f371d;
@@ -209,7 +211,7 @@ public final class az implements au, aw, ax, C1007f {
                 synchronized (this.f347c.f383p) {
                     if (this.f347c.f360B < 10) {
                         bk bkVar = new bk(this.f345a, this.f346b);
-                        bkVar.m521a("current_session", this.f347c.f378k);
+                        bkVar.m524a("current_session", this.f347c.m426B());
                         bkVar.m519a(this.f347c.f379l);
                         bkVar.f482f = "he";
                         if (this.f347c.f383p.m690a()) {
@@ -239,7 +241,7 @@ public final class az implements au, aw, ax, C1007f {
         public final void m370a() {
             if (!this.f350c.f373f.m747b()) {
                 ch bkVar = new bk(this.f348a, this.f349b);
-                bkVar.m521a("current_session", this.f350c.f378k);
+                bkVar.m524a("current_session", this.f350c.m426B());
                 bkVar.f482f = "he";
                 if (this.f350c.f375h.m552a(bkVar)) {
                     az.f358a.m389a(new by(bkVar.f479c, bkVar.f480d));
@@ -265,7 +267,7 @@ public final class az implements au, aw, ax, C1007f {
         }
 
         public final void m371a() {
-            this.f352b.f378k.m552a(this.f351a);
+            this.f352b.m427a(this.f351a);
         }
     }
 
@@ -457,13 +459,17 @@ public final class az implements au, aw, ax, C1007f {
         this.f384q.m709b();
         dq.m727a(this.f370c, true);
         if (!this.f373f.m747b()) {
+            eg egVar = this.f395L;
+            if (egVar != null) {
+                egVar.m794a(Thread.currentThread(), th);
+            }
             if (this.f387t) {
                 new dj(new cu(this).m687a(br.SDK_CRASHES.m540f(), new JSONArray().put(new bk(th, Thread.currentThread().getId()).m523b())), new dc(new db(this.f388u.m442b(), "/android_v2/handle_crashes").m695a()), null).run();
                 return;
             }
             List a = bg.m467a(this, th instanceof PluginException);
             ch bkVar = new bk(th, Thread.currentThread().getId());
-            bkVar.m521a("crashed_session", this.f378k);
+            bkVar.m524a("crashed_session", m426B());
             if (this.f364F.m553b() > 0) {
                 bkVar.m521a("previous_session", this.f364F);
             }
@@ -471,7 +477,9 @@ public final class az implements au, aw, ax, C1007f {
             bkVar.f478b = new bo(this.f380m).f507a;
             bkVar.m518a();
             bkVar.m522a(a);
-            this.f377j.m552a(bkVar);
+            if (this.f377j.m552a(bkVar) && egVar != null) {
+                egVar.m795b();
+            }
             df dfVar = new df(this.f370c);
             dfVar.m700a(this.f374g, new C1059a(), this.f388u.m445e(), "/v0/appload", null, this, new C1055b());
             dfVar.m700a(this.f375h, new C1059a(), this.f388u.m442b(), "/android_v2/handle_exceptions", null, this, new C1057a());
@@ -630,6 +638,8 @@ public final class az implements au, aw, ax, C1007f {
             this.f378k = new bs(this.f370c, br.CURR_BCS).m548a(this.f370c);
         } else {
             this.f378k = new bs(this.f370c, br.CURR_BCS);
+            this.f394K = ef.m783a(this.f370c, br.CURR_BCS.m536b());
+            this.f395L = eg.m790a(this.f370c);
         }
         this.f364F = new bs(this.f370c, br.PREV_BCS);
         this.f379l = new bs(this.f370c, br.NW_BCS);
@@ -714,6 +724,7 @@ public final class az implements au, aw, ax, C1007f {
         if (this.f365G != null && c1072h.f805a && !c1072h.f807c) {
             dx.m750a("Enabling OPTMZ");
             this.f365G.m778a(c1072h.f808d, TimeUnit.SECONDS);
+            this.f389v.m765a(c1072h.f809e);
             this.f365G.m777a();
         }
     }
@@ -750,6 +761,30 @@ public final class az implements au, aw, ax, C1007f {
         return this.f378k;
     }
 
+    /**
+     * Breadcrumbs of the current session, read from the mapped ring when there is one.
+     */
+    public final JSONArray m426B() {
+        ef efVar = this.f394K;
+        if (efVar != null) {
+            return efVar.m786b();
+        }
+        return new bo(this.f378k).f507a;
+    }
+
+    public final eg m428C() {
+        return this.f395L;
+    }
+
+    public final void m427a(cf cfVar) {
+        ef efVar = this.f394K;
+        if (efVar != null) {
+            cfVar.m662a(efVar);
+        } else {
+            this.f378k.m552a(cfVar);
+        }
+    }
+
     public final bs m420u() {
         return this.f364F;
     }
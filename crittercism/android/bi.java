@@ -128,7 +128,7 @@ public final class bi extends di implements bt {
             if (!m505b(jSONArray)) {
                 return jSONObject;
             }
-            jSONObject.put("breadcrumbs", new bo(this.f464g).f507a);
+            jSONObject.put("breadcrumbs", az.m375A().m426B());
             jSONObject.put("endpoints", new bo(this.f465h).f507a);
             jSONObject.put("systemBreadcrumbs", new bo(this.f466i).f507a);
             return jSONObject;
@@ -32,6 +32,7 @@ import crittercism.android.bx.C1047z;
 import crittercism.android.bx.aa;
 import java.io.OutputStream;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -67,9 +68,7 @@ public final class bk implements ch {
         this.f491o = th instanceof PluginException;
         this.f492p = cg.f624a.m663a();
         this.f482f = "uhe";
-        bu buVar = new bu();
-        buVar.m557a(new C1022a()).m557a(new C1024c()).m557a(new C1023b()).m557a(new C1025d()).m557a(new C1026e()).m557a(new C1027f()).m557a(new C1036o()).m557a(new C1037p()).m557a(new C1030i()).m557a(new C1031j()).m557a(new C1029h()).m557a(new C1047z()).m557a(new aa()).m557a(new C1032k()).m557a(new C1033l()).m557a(new C1035n()).m557a(new C1034m()).m557a(new C1038q()).m557a(new C1039r()).m557a(new C1040s()).m557a(new C1041t()).m557a(new C1042u()).m557a(new C1043v()).m557a(new C1044w()).m557a(new C1045x()).m557a(new C1046y());
-        this.f483g = buVar.m558a();
+        this.f483g = m526f();
         this.f484h = new JSONObject();
         this.f477a = j;
         this.f479c = m515a(th);
@@ -90,6 +89,40 @@ public final class bk implements ch {
         }
     }
 
+    /**
+     * Rebuilds the report of a crash captured by {@link eg} in an earlier process.
+     */
+    bk(long j, long j2, boolean z, String str, String str2, String[] strArr, StackTraceElement[] stackTraceElementArr, JSONArray jSONArray) {
+        this.f480d = BuildConfig.FLAVOR;
+        this.f490n = -1;
+        this.f491o = z;
+        this.f492p = cg.f624a.m663a();
+        this.f482f = "uhe";
+        this.f483g = m526f();
+        this.f484h = new JSONObject();
+        this.f477a = j2;
+        this.f479c = str;
+        if (str2 != null) {
+            this.f480d = str2;
+        }
+        if (!this.f491o) {
+            this.f490n = m525a(stackTraceElementArr);
+        }
+        this.f487k = "android";
+        this.f489m = ed.f792a.m772a(new Date(j));
+        this.f488l = new JSONArray();
+        for (String put : strArr) {
+            this.f488l.put(put);
+        }
+        this.f481e = jSONArray;
+    }
+
+    private static JSONObject m526f() {
+        bu buVar = new bu();
+        buVar.m557a(new C1022a()).m557a(new C1024c()).m557a(new C1023b()).m557a(new C1025d()).m557a(new C1026e()).m557a(new C1027f()).m557a(new C1036o()).m557a(new C1037p()).m557a(new C1030i()).m557a(new C1031j()).m557a(new C1029h()).m557a(new C1047z()).m557a(new aa()).m557a(new C1032k()).m557a(new C1033l()).m557a(new C1035n()).m557a(new C1034m()).m557a(new C1038q()).m557a(new C1039r()).m557a(new C1040s()).m557a(new C1041t()).m557a(new C1042u()).m557a(new C1043v()).m557a(new C1044w()).m557a(new C1045x()).m557a(new C1046y());
+        return buVar.m558a();
+    }
+
     public final void m521a(String str, bs bsVar) {
         try {
             this.f484h.put(str, new bo(bsVar).f507a);
@@ -97,6 +130,13 @@ public final class bk implements ch {
         }
     }
 
+    public final void m524a(String str, JSONArray jSONArray) {
+        try {
+            this.f484h.put(str, jSONArray);
+        } catch (JSONException e) {
+        }
+    }
+
     public final void m519a(bs bsVar) {
         this.f485i = new bo(bsVar).f507a;
     }
@@ -167,7 +207,10 @@ public final class bk implements ch {
     }
 
     private static int m517c(Throwable th) {
-        StackTraceElement[] stackTrace = th.getStackTrace();
+        return m525a(th.getStackTrace());
+    }
+
+    private static int m525a(StackTraceElement[] stackTrace) {
         int i = 0;
         while (i < stackTrace.length) {
             try {
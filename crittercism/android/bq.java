@@ -6,8 +6,12 @@ import spacemadness.com.lunarconsole.BuildConfig;
 
 public class bq {
     protected File f508a;
+    protected byte[] f509b;
 
     public Object m534a() {
+        if (this.f509b != null) {
+            return new String(this.f509b);
+        }
         Object obj = BuildConfig.FLAVOR;
         try {
             obj = eb.m766b(this.f508a);
@@ -19,4 +23,8 @@ public class bq {
     public bq(File file) {
         this.f508a = file;
     }
+
+    public bq(byte[] bArr) {
+        this.f509b = bArr;
+    }
 }
@@ -1,19 +1,47 @@
 package crittercism.android;
 
 import android.content.Context;
+import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map.Entry;
 import java.util.UUID;
+import java.util.zip.CRC32;
 
+/**
+ * Record store backed by an append-only log split into segment files.
+ *
+ * Each record is framed as {@code length | type | name | data | crc32}; deletes append a
+ * tombstone. An in-memory index from record name to segment offset is rebuilt by replaying the
+ * segments on open, stopping at the first torn or corrupt frame, so counting is O(1) and reading
+ * never lists the directory. Segments are dropped from the head once nothing live remains in
+ * them, and the head segment is copied forward when dead records outweigh live ones. Stores left
+ * in the old one-file-per-record layout are imported on open.
+ */
 public final class bs {
+    private static final byte f537j = (byte) 1;
+    private static final byte f538k = (byte) 2;
+    private static final String f539l = "segment_";
+    private static final long f540m = 32768;
     public final File f528a;
     public String f529b;
     public List f530c;
@@ -23,6 +51,9 @@ public final class bs {
     private int f534g;
     private C1021a f535h;
     private boolean f536i;
+    private final LinkedHashMap f541n;
+    private final LinkedList f542o;
+    private long f543p;
 
     /* renamed from: crittercism.android.bs.a */
     public static class C1021a {
@@ -33,6 +64,34 @@ public final class bs {
         }
     }
 
+    /* renamed from: crittercism.android.bs.b */
+    static final class C1022b {
+        final int f544a;
+        final File f545b;
+        long f546c;
+        int f547d;
+
+        C1022b(int i, File file) {
+            this.f544a = i;
+            this.f545b = file;
+        }
+    }
+
+    /* renamed from: crittercism.android.bs.c */
+    static final class C1023c {
+        final C1022b f548a;
+        final long f549b;
+        final int f550c;
+        final int f551d;
+
+        C1023c(C1022b c1022b, long j, int i, int i2) {
+            this.f548a = c1022b;
+            this.f549b = j;
+            this.f550c = i;
+            this.f551d = i2;
+        }
+    }
+
     public bs(Context context, br brVar) {
         this(new File(context.getFilesDir().getAbsolutePath() + "//com.crittercism//" + brVar.m535a()), brVar.m537c(), brVar.m538d(), brVar.m539e(), brVar.m536b(), brVar.m540f());
     }
@@ -45,9 +104,11 @@ public final class bs {
         this.f533f = i2;
         this.f529b = str;
         this.f528a = file;
+        this.f541n = new LinkedHashMap();
+        this.f542o = new LinkedList();
         file.mkdirs();
-        m542d();
-        this.f532e = m546h().length;
+        m556j();
+        this.f532e = this.f541n.size();
         this.f530c = new LinkedList();
     }
 
@@ -104,7 +165,6 @@ public final class bs {
     public final synchronized boolean m554b(ch chVar) {
         boolean c;
         if (m542d()) {
-            new File(this.f528a, chVar.m465e()).delete();
             c = m541c(chVar);
         } else {
             c = false;
@@ -113,29 +173,19 @@ public final class bs {
     }
 
     private boolean m541c(ch chVar) {
-        File file = new File(this.f528a, chVar.m465e());
-        OutputStream outputStream = null;
+        String e = chVar.m465e();
         try {
-            outputStream = new BufferedOutputStream(new FileOutputStream(file));
-        } catch (FileNotFoundException e) {
-            new StringBuilder("Could not open output stream to : ").append(file);
-            dx.m748a();
-        }
-        try {
-            chVar.m464a(outputStream);
-            return true;
-        } catch (Throwable e2) {
-            file.delete();
-            dx.m751a("Unable to write to " + file.getAbsolutePath(), e2);
-            return false;
-        } finally {
-            try {
-                outputStream.close();
-            } catch (Throwable e22) {
-                file.delete();
-                dx.m751a("Unable to close " + file.getAbsolutePath(), e22);
+            ByteArrayOutputStream b = m559b(f537j, e);
+            int size = b.size();
+            chVar.m464a(b);
+            if (!m558a(f537j, e, b, size)) {
                 return false;
             }
+            m566l();
+            return true;
+        } catch (Throwable th) {
+            dx.m751a("Unable to write " + e + " to " + this.f528a.getAbsolutePath(), th);
+            return false;
         }
     }
 
@@ -148,20 +198,18 @@ public final class bs {
     }
 
     private boolean m544f() {
-        C1021a c1021a = this.f535h;
         if (this.f535h == null) {
             return false;
         }
-        C1021a c1021a2 = this.f535h;
-        File[] g = m545g();
-        File file = null;
-        if (g.length > c1021a2.f527a) {
-            file = g[c1021a2.f527a];
-        }
-        if (file == null || !file.delete()) {
+        int i = this.f535h.f527a;
+        if (this.f541n.size() <= i) {
             return false;
         }
-        return true;
+        Iterator it = this.f541n.keySet().iterator();
+        for (int i2 = 0; i2 < i; i2++) {
+            it.next();
+        }
+        return m560c((String) it.next());
     }
 
     public final synchronized void m549a() {
@@ -170,6 +218,9 @@ public final class bs {
             for (File delete : h) {
                 delete.delete();
             }
+            this.f541n.clear();
+            this.f542o.clear();
+            this.f543p = 0;
         }
     }
 
@@ -188,7 +239,7 @@ public final class bs {
     }
 
     public final synchronized int m553b() {
-        return m546h().length;
+        return this.f541n.size();
     }
 
     private synchronized int m547i() {
@@ -197,10 +248,7 @@ public final class bs {
 
     public final synchronized void m551a(String str) {
         if (m542d() && str != null) {
-            File file = new File(this.f528a.getAbsolutePath(), str);
-            if (file.exists()) {
-                file.delete();
-            }
+            m560c(str);
         }
     }
 
@@ -217,20 +265,24 @@ public final class bs {
                     bsVar2 = this;
                     bsVar3 = bsVar;
                 }
-                synchronized (r2) {
-                    synchronized (r1) {
+                synchronized (bsVar2) {
+                    synchronized (bsVar3) {
                         if (m542d() && bsVar.m542d()) {
-                            File[] g = m545g();
-                            for (compareTo = 0; compareTo < g.length; compareTo++) {
-                                g[compareTo].renameTo(new File(bsVar.f528a, g[compareTo].getName()));
+                            C1024d c1024d = new C1024d(bsVar);
+                            if (m564a(this.f541n.entrySet(), c1024d)) {
+                                m549a();
+                            } else {
+                                for (Object obj : c1024d.f554b) {
+                                    m560c((String) obj);
+                                }
                             }
                             bsVar.m543e();
-                            for (bt d : this.f530c) {
-                                d.m503d();
+                            synchronized (this.f530c) {
+                                for (bt d : this.f530c) {
+                                    d.m503d();
+                                }
                             }
-                            return;
                         }
-                        return;
                     }
                 }
             }
@@ -241,12 +293,347 @@ public final class bs {
         List arrayList;
         arrayList = new ArrayList();
         if (m542d()) {
-            cj cjVar = this.f531d;
-            File[] g = m545g();
-            for (File a : g) {
-                arrayList.add(this.f531d.m627a(a));
-            }
+            m564a(this.f541n.entrySet(), new C1025e(arrayList, this.f531d));
         }
         return arrayList;
     }
+
+    /* renamed from: crittercism.android.bs.d */
+    private static class C1024d {
+        final bs f551a;
+        final List f554b;
+
+        C1024d(bs bsVar) {
+            this.f551a = bsVar;
+            this.f554b = new ArrayList();
+        }
+
+        /**
+         * Returns false if the record could not be written; the names of those that were are
+         * collected in {@code f554b}.
+         */
+        boolean m565a(String str, byte[] bArr) {
+            try {
+                ByteArrayOutputStream b = bs.m559b(bs.f537j, str);
+                int size = b.size();
+                b.write(bArr);
+                if (!this.f551a.m558a(bs.f537j, str, b, size)) {
+                    return false;
+                }
+                this.f554b.add(str);
+                return true;
+            } catch (IOException e) {
+                dx.m751a("Unable to move " + str + " to " + this.f551a.f528a.getAbsolutePath(), e);
+                return false;
+            }
+        }
+    }
+
+    /* renamed from: crittercism.android.bs.e */
+    private static final class C1025e extends C1024d {
+        final List f552b;
+        final cj f553c;
+
+        C1025e(List list, cj cjVar) {
+            super(null);
+            this.f552b = list;
+            this.f553c = cjVar;
+        }
+
+        boolean m565a(String str, byte[] bArr) {
+            this.f552b.add(this.f553c.m626a(bArr));
+            return true;
+        }
+    }
+
+    /**
+     * Hands the given live records to the visitor in index order, opening each segment once.
+     * Returns false if any record could not be read or was refused by the visitor.
+     */
+    private boolean m564a(Collection collection, C1024d c1024d) {
+        boolean z = true;
+        C1022b c1022b = null;
+        RandomAccessFile randomAccessFile = null;
+        try {
+            for (Entry entry : (Entry[]) collection.toArray(new Entry[collection.size()])) {
+                C1023c c1023c = (C1023c) entry.getValue();
+                try {
+                    if (c1023c.f548a != c1022b) {
+                        if (randomAccessFile != null) {
+                            randomAccessFile.close();
+                        }
+                        c1022b = c1023c.f548a;
+                        randomAccessFile = new RandomAccessFile(c1022b.f545b, "r");
+                    }
+                    byte[] bArr = new byte[c1023c.f550c];
+                    randomAccessFile.seek(c1023c.f549b);
+                    randomAccessFile.readFully(bArr);
+                    if (!c1024d.m565a((String) entry.getKey(), bArr)) {
+                        z = false;
+                    }
+                } catch (IOException e) {
+                    new StringBuilder("Could not read ").append((String) entry.getKey());
+                    dx.m748a();
+                    z = false;
+                }
+            }
+            return z;
+        } finally {
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException e2) {
+                }
+            }
+        }
+    }
+
+    private static ByteArrayOutputStream m559b(byte b, String str) throws IOException {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        DataOutputStream dataOutputStream = new DataOutputStream(byteArrayOutputStream);
+        dataOutputStream.writeByte(b);
+        dataOutputStream.writeUTF(str);
+        dataOutputStream.flush();
+        return byteArrayOutputStream;
+    }
+
+    /**
+     * Appends one framed record to the active segment and applies it to the index. A failed write
+     * is cut off again so the segment never keeps a torn frame in front of later appends.
+     */
+    private boolean m558a(byte b, String str, ByteArrayOutputStream byteArrayOutputStream, int i) {
+        byte[] toByteArray = byteArrayOutputStream.toByteArray();
+        CRC32 crc32 = new CRC32();
+        crc32.update(toByteArray);
+        C1022b k = m562k();
+        DataOutputStream dataOutputStream = null;
+        try {
+            dataOutputStream = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(k.f545b, true)));
+            dataOutputStream.writeInt(toByteArray.length);
+            dataOutputStream.write(toByteArray);
+            dataOutputStream.writeInt((int) crc32.getValue());
+            dataOutputStream.close();
+            dataOutputStream = null;
+            long j = k.f546c;
+            k.f546c += (long) (toByteArray.length + 8);
+            if (b == f537j) {
+                m561a(str, new C1023c(k, 4 + j + ((long) i), toByteArray.length - i, toByteArray.length + 8));
+            } else {
+                m563d(str);
+            }
+            return true;
+        } catch (IOException e) {
+            dx.m751a("Unable to write to " + k.f545b.getAbsolutePath(), e);
+            if (dataOutputStream != null) {
+                try {
+                    dataOutputStream.close();
+                } catch (IOException e2) {
+                }
+            }
+            m557a(k);
+            return false;
+        }
+    }
+
+    private C1022b m562k() {
+        C1022b c1022b = this.f542o.isEmpty() ? null : (C1022b) this.f542o.getLast();
+        if (c1022b != null && c1022b.f546c < f540m) {
+            return c1022b;
+        }
+        int i = c1022b == null ? 0 : c1022b.f544a + 1;
+        C1022b c1022b2 = new C1022b(i, new File(this.f528a, String.format(Locale.US, "%s%010d", new Object[]{f539l, Integer.valueOf(i)})));
+        this.f542o.add(c1022b2);
+        return c1022b2;
+    }
+
+    private boolean m560c(String str) {
+        if (!this.f541n.containsKey(str)) {
+            return false;
+        }
+        try {
+            if (!m558a(f538k, str, m559b(f538k, str), 0)) {
+                return false;
+            }
+            m566l();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void m561a(String str, C1023c c1023c) {
+        C1023c c1023c2 = (C1023c) this.f541n.put(str, c1023c);
+        if (c1023c2 != null) {
+            C1022b c1022b = c1023c2.f548a;
+            c1022b.f547d--;
+            this.f543p -= (long) c1023c2.f551d;
+        }
+        C1022b c1022b2 = c1023c.f548a;
+        c1022b2.f547d++;
+        this.f543p += (long) c1023c.f551d;
+    }
+
+    private void m563d(String str) {
+        C1023c c1023c = (C1023c) this.f541n.remove(str);
+        if (c1023c != null) {
+            C1022b c1022b = c1023c.f548a;
+            c1022b.f547d--;
+            this.f543p -= (long) c1023c.f551d;
+        }
+    }
+
+    /**
+     * Drops head segments with nothing live left in them. When the log holds more than twice its
+     * live data, the head's live records are first copied to the active segment. Only the head is
+     * ever removed, so no tombstone can be lost while the record it deletes is still on disk.
+     */
+    private void m566l() {
+        while (this.f542o.size() > 1) {
+            C1022b c1022b = (C1022b) this.f542o.getFirst();
+            if (c1022b.f547d == 0) {
+                c1022b.f545b.delete();
+                this.f542o.removeFirst();
+            } else {
+                long j = 0;
+                Iterator it = this.f542o.iterator();
+                while (it.hasNext()) {
+                    j += ((C1022b) it.next()).f546c;
+                }
+                if (j > (this.f543p * 2) + f540m) {
+                    List arrayList = new ArrayList();
+                    for (Entry entry : this.f541n.entrySet()) {
+                        if (((C1023c) entry.getValue()).f548a == c1022b) {
+                            arrayList.add(entry);
+                        }
+                    }
+                    int i = c1022b.f547d;
+                    m564a(arrayList, new C1024d(this));
+                    if (c1022b.f547d == i) {
+                        return;
+                    }
+                } else {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void m556j() {
+        if (m542d()) {
+            List arrayList = new ArrayList();
+            for (File file : m545g()) {
+                String name = file.getName();
+                if (name.startsWith(f539l)) {
+                    try {
+                        C1022b c1022b = new C1022b(Integer.parseInt(name.substring(f539l.length())), file);
+                        this.f542o.add(c1022b);
+                        m555a(c1022b);
+                    } catch (NumberFormatException e) {
+                        arrayList.add(file);
+                    }
+                } else if (file.isFile()) {
+                    arrayList.add(file);
+                }
+            }
+            for (File file2 : (File[]) arrayList.toArray(new File[arrayList.size()])) {
+                try {
+                    ByteArrayOutputStream b = m559b(f537j, file2.getName());
+                    int size = b.size();
+                    m554a(file2, b);
+                    if (m558a(f537j, file2.getName(), b, size)) {
+                        file2.delete();
+                    }
+                } catch (IOException e2) {
+                    new StringBuilder("Could not import ").append(file2);
+                    dx.m748a();
+                }
+            }
+            m566l();
+        }
+    }
+
+    private static void m554a(File file, ByteArrayOutputStream byteArrayOutputStream) throws IOException {
+        InputStream fileInputStream = new FileInputStream(file);
+        try {
+            byte[] bArr = new byte[8192];
+            while (true) {
+                int read = fileInputStream.read(bArr);
+                if (read != -1) {
+                    byteArrayOutputStream.write(bArr, 0, read);
+                } else {
+                    return;
+                }
+            }
+        } finally {
+            fileInputStream.close();
+        }
+    }
+
+    /**
+     * Replays one segment into the index and cuts it after the last intact frame.
+     */
+    private void m555a(C1022b c1022b) {
+        long length = c1022b.f545b.length();
+        long j = 0;
+        CRC32 crc32 = new CRC32();
+        DataInputStream dataInputStream = null;
+        try {
+            dataInputStream = new DataInputStream(new BufferedInputStream(new FileInputStream(c1022b.f545b)));
+            while (true) {
+                int readInt = dataInputStream.readInt();
+                if (readInt < 3 || ((long) readInt) > (length - j) - 8) {
+                    break;
+                }
+                byte[] bArr = new byte[readInt];
+                dataInputStream.readFully(bArr);
+                int readInt2 = dataInputStream.readInt();
+                crc32.reset();
+                crc32.update(bArr);
+                if (((int) crc32.getValue()) != readInt2) {
+                    break;
+                }
+                DataInputStream dataInputStream2 = new DataInputStream(new ByteArrayInputStream(bArr));
+                byte readByte = dataInputStream2.readByte();
+                String readUTF = dataInputStream2.readUTF();
+                int available = dataInputStream2.available();
+                if (readByte == f537j) {
+                    m561a(readUTF, new C1023c(c1022b, (4 + j) + ((long) (readInt - available)), available, readInt + 8));
+                } else {
+                    m563d(readUTF);
+                }
+                j += (long) (readInt + 8);
+            }
+        } catch (EOFException e) {
+        } catch (IOException e2) {
+            dx.m751a("Unable to read " + c1022b.f545b.getAbsolutePath(), e2);
+        } finally {
+            if (dataInputStream != null) {
+                try {
+                    dataInputStream.close();
+                } catch (IOException e3) {
+                }
+            }
+        }
+        c1022b.f546c = j;
+        if (j < length) {
+            m557a(c1022b);
+        }
+    }
+
+    private static void m557a(C1022b c1022b) {
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(c1022b.f545b, "rw");
+            randomAccessFile.setLength(c1022b.f546c);
+        } catch (IOException e) {
+            dx.m751a("Unable to truncate " + c1022b.f545b.getAbsolutePath(), e);
+        } finally {
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException e2) {
+                }
+            }
+        }
+    }
 }
@@ -11,12 +11,20 @@ public final class bz extends bq {
         public final bq m628a(File file) {
             return new bz((byte) 0);
         }
+
+        public final bq m626a(byte[] bArr) {
+            return new bz(bArr);
+        }
     }
 
     private bz(File file) {
         super(file);
     }
 
+    private bz(byte[] bArr) {
+        super(bArr);
+    }
+
     public final Object m629a() {
         try {
             return new JSONArray((String) super.m534a());
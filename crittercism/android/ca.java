@@ -11,12 +11,20 @@ public final class ca extends bq {
         public final bq m651a(File file) {
             return new ca((byte) 0);
         }
+
+        public final bq m626a(byte[] bArr) {
+            return new ca(bArr);
+        }
     }
 
     private ca(File file) {
         super(file);
     }
 
+    private ca(byte[] bArr) {
+        super(bArr);
+    }
+
     public final Object m652a() {
         try {
             return new JSONObject((String) super.m534a());
@@ -24,7 +24,7 @@ public final class cf extends bp {
         this(str, ed.f792a.m771a(), c1053a);
     }
 
-    private cf(String str, String str2, C1053a c1053a) {
+    cf(String str, String str2, C1053a c1053a) {
         this.f622d = cg.f624a.m663a();
         if (str.length() > 140) {
             str = str.substring(0, 140);
@@ -47,4 +47,14 @@ public final class cf extends bp {
     public final String m661e() {
         return this.f622d;
     }
+
+    final void m662a(ef efVar) {
+        long currentTimeMillis;
+        try {
+            currentTimeMillis = ed.f792a.m770a(this.f621c);
+        } catch (Exception e) {
+            currentTimeMillis = System.currentTimeMillis();
+        }
+        efVar.m788a(this.f620b, currentTimeMillis);
+    }
 }
@@ -3,5 +3,7 @@ package crittercism.android;
 import java.io.File;
 
 public abstract class cj {
+    public abstract bq m626a(byte[] bArr);
+
     public abstract bq m627a(File file);
 }
@@ -94,6 +94,7 @@ public final class ct extends da {
                     edit.putBoolean("kill", c1072h.f807c);
                     edit.putBoolean("persist", c1072h.f806b);
                     edit.putInt("interval", c1072h.f808d);
+                    edit.putFloat("sample_rate", c1072h.f809e);
                 } else {
                     edit.clear();
                 }
@@ -106,6 +106,14 @@ public final class dg extends di {
             bs u = this.f720f.m354u();
             bs v = this.f720f.m355v();
             bs q = this.f720f.m350q();
+            ef efVar = A.f394K;
+            if (efVar != null) {
+                efVar.m789a(s);
+            }
+            eg C = A.m428C();
+            if (C != null) {
+                C.m796a(s, u, t, v, this.f720f.m351r());
+            }
             if (file != null) {
                 dq.f750a = true;
                 A.f372e.open();
@@ -197,6 +205,8 @@ public final class dg extends di {
                 new bs(this.f719e, br.NDK_CRASHES).m549a();
                 new bs(this.f719e, br.SDK_CRASHES).m549a();
                 new bs(this.f719e, br.CURR_BCS).m549a();
+                ef.m787a(this.f719e);
+                eg.m801b(this.f719e);
                 new bs(this.f719e, br.PREV_BCS).m549a();
                 new bs(this.f719e, br.NW_BCS).m549a();
                 new bs(this.f719e, br.SYSTEM_BCS).m549a();
@@ -229,6 +239,9 @@ public final class dg extends di {
             } else {
                 c1072h = null;
             }
+            if (c1072h != null && sharedPreferences.contains("sample_rate")) {
+                c1072h.f809e = sharedPreferences.getFloat("sample_rate", 1.0f);
+            }
             if (c1072h != null) {
                 az.m375A().m390a(c1072h);
             }
@@ -248,7 +261,7 @@ public final class dg extends di {
             }
             m702a(e2);
             this.f715a.open();
-            this.f720f.m352s().m552a(cf.f619a);
+            az.m375A().m427a(cf.f619a);
             if (!az.m375A().f387t && this.f718d.isNdkCrashReportingEnabled()) {
                 dx.m753b();
                 try {
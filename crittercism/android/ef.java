@@ -0,0 +1,220 @@
+package crittercism.android;
+
+import android.content.Context;
+import crittercism.android.cf.C1053a;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Date;
+import org.json.JSONArray;
+import org.json.JSONException;
+
+/**
+ * Fixed-size breadcrumb ring kept in a memory-mapped file.
+ *
+ * A breadcrumb is copied straight into the mapping on the calling thread, without allocating or
+ * touching the executor. Each slot holds a sequence number, a timestamp and up to 140 UTF-16
+ * chars; the sequence number is written last and cleared first, so a slot torn by the process
+ * dying mid-write is skipped on read. Pages of a shared mapping outlive the process, so the next
+ * launch reads the crashed session's last breadcrumbs from the file as it was left.
+ *
+ * Before the ring is reused, those breadcrumbs are copied to a side file, which is only deleted
+ * once they have been handed to the record store. A process dying in between still leaves them
+ * for the launch after it.
+ */
+public final class ef {
+    private static final int f795a = 1129464369;
+    private static final int f796b = 16;
+    private static final int f797c = 140;
+    private static final int f798d = 304;
+    private final MappedByteBuffer f799e;
+    private final int f800f;
+    private long f801g;
+    private JSONArray f802h;
+    private final File f803i;
+
+    private ef(MappedByteBuffer mappedByteBuffer, int i, File file) {
+        this.f799e = mappedByteBuffer;
+        this.f800f = i;
+        this.f803i = file;
+        JSONArray b = (mappedByteBuffer.getInt(0) == f795a && mappedByteBuffer.getInt(4) == i && mappedByteBuffer.getInt(8) == f798d) ? m786b() : new JSONArray();
+        mappedByteBuffer.putInt(0, f795a);
+        mappedByteBuffer.putInt(4, i);
+        mappedByteBuffer.putInt(8, f798d);
+        if (b.length() > 0) {
+            m790b(file, b);
+            this.f802h = b;
+        } else {
+            this.f802h = m791c(file);
+        }
+        for (int i2 = 0; i2 < i; i2++) {
+            mappedByteBuffer.putLong(m784a(i2), 0);
+        }
+        this.f801g = 1;
+    }
+
+    private static File m785b(Context context) {
+        return new File(context.getFilesDir().getAbsolutePath() + "//com.crittercism//breadcrumb_ring");
+    }
+
+    private static File m792c(Context context) {
+        return new File(context.getFilesDir().getAbsolutePath() + "//com.crittercism//breadcrumb_ring_previous");
+    }
+
+    private static void m790b(File file, JSONArray jSONArray) {
+        FileOutputStream fileOutputStream = null;
+        try {
+            fileOutputStream = new FileOutputStream(file);
+            fileOutputStream.write(jSONArray.toString().getBytes("UTF-8"));
+            fileOutputStream.getFD().sync();
+        } catch (IOException e) {
+            dx.m751a("Unable to write " + file.getAbsolutePath(), e);
+        } finally {
+            if (fileOutputStream != null) {
+                try {
+                    fileOutputStream.close();
+                } catch (IOException e2) {
+                }
+            }
+        }
+    }
+
+    private static JSONArray m791c(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            byte[] bArr = new byte[((int) randomAccessFile.length())];
+            randomAccessFile.readFully(bArr);
+            return new JSONArray(new String(bArr, "UTF-8"));
+        } catch (IOException e) {
+            file.delete();
+            return null;
+        } catch (JSONException e2) {
+            file.delete();
+            return null;
+        } finally {
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException e3) {
+                }
+            }
+        }
+    }
+
+    /**
+     * Maps the ring file, sized for {@code i} breadcrumbs. Whatever the previous process left in
+     * it is kept aside for {@link #m789a(bs)} and the ring starts out empty. Returns null when
+     * the file cannot be mapped; callers then fall back to the record store.
+     */
+    public static ef m783a(Context context, int i) {
+        File b = m785b(context);
+        b.getParentFile().mkdirs();
+        RandomAccessFile randomAccessFile = null;
+        try {
+            randomAccessFile = new RandomAccessFile(b, "rw");
+            long j = (long) ((i * f798d) + f796b);
+            randomAccessFile.setLength(j);
+            ef efVar = new ef(randomAccessFile.getChannel().map(MapMode.READ_WRITE, 0, j), i, m792c(context));
+            return efVar;
+        } catch (IOException e) {
+            dx.m751a("Unable to map " + b.getAbsolutePath(), e);
+            return null;
+        } finally {
+            if (randomAccessFile != null) {
+                try {
+                    randomAccessFile.close();
+                } catch (IOException e2) {
+                }
+            }
+        }
+    }
+
+    public static void m787a(Context context) {
+        m785b(context).delete();
+        m792c(context).delete();
+    }
+
+    private static int m784a(int i) {
+        return (i * f798d) + f796b;
+    }
+
+    public final synchronized void m788a(String str, long j) {
+        long j2 = this.f801g;
+        this.f801g = 1 + j2;
+        int a = m784a((int) (j2 % ((long) this.f800f)));
+        MappedByteBuffer mappedByteBuffer = this.f799e;
+        mappedByteBuffer.putLong(a, 0);
+        mappedByteBuffer.putLong(a + 8, j);
+        int min = Math.min(str.length(), f797c);
+        mappedByteBuffer.putShort(a + 16, (short) min);
+        int i = a + 18;
+        for (int i2 = 0; i2 < min; i2++) {
+            mappedByteBuffer.putChar((i2 * 2) + i, str.charAt(i2));
+        }
+        mappedByteBuffer.putLong(a, j2);
+    }
+
+    /**
+     * Breadcrumbs of the current session, oldest first, in the format {@link cf} writes.
+     */
+    public final synchronized JSONArray m786b() {
+        long[] jArr = new long[this.f800f];
+        int i = 0;
+        for (int i2 = 0; i2 < this.f800f; i2++) {
+            long j = this.f799e.getLong(m784a(i2));
+            if (j > 0) {
+                int i3 = i;
+                while (i3 > 0 && jArr[i3 - 1] > j) {
+                    jArr[i3] = jArr[i3 - 1];
+                    i3--;
+                }
+                jArr[i3] = j;
+                i++;
+            }
+        }
+        JSONArray jSONArray = new JSONArray();
+        for (int i4 = 0; i4 < i; i4++) {
+            int a = m784a((int) (jArr[i4] % ((long) this.f800f)));
+            int min = Math.min(this.f799e.getShort(a + 16), f797c);
+            if (min >= 0) {
+                char[] cArr = new char[min];
+                for (int i5 = 0; i5 < min; i5++) {
+                    cArr[i5] = this.f799e.getChar((a + 18) + (i5 * 2));
+                }
+                JSONArray jSONArray2 = new JSONArray();
+                jSONArray2.put(new String(cArr));
+                jSONArray2.put(ed.f792a.m772a(new Date(this.f799e.getLong(a + 8))));
+                jSONArray.put(jSONArray2);
+            }
+        }
+        return jSONArray;
+    }
+
+    /**
+     * Appends the previous process's breadcrumbs to the given store, once, and only then drops
+     * the side file they were kept in.
+     */
+    public final void m789a(bs bsVar) {
+        JSONArray jSONArray;
+        synchronized (this) {
+            jSONArray = this.f802h;
+            this.f802h = null;
+        }
+        if (jSONArray != null) {
+            for (int i = 0; i < jSONArray.length(); i++) {
+                JSONArray optJSONArray = jSONArray.optJSONArray(i);
+                if (optJSONArray != null) {
+                    bsVar.m552a(new cf(optJSONArray.optString(0), optJSONArray.optString(1), C1053a.NORMAL));
+                }
+            }
+            this.f803i.delete();
+        }
+    }
+}
@@ -0,0 +1,381 @@
+package crittercism.android;
+
+import android.content.Context;
+import com.crittercism.integrations.PluginException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+/**
+ * Crash snapshot written with memory reserved up front.
+ *
+ * The buffer, the file and the thread array are all set up when the SDK starts, so capturing a
+ * crash only walks the threads and copies names and frames into the buffer, then hands it to the
+ * already open file in one write. Nothing goes through org.json or the executors, which may be
+ * unusable by the time the process dies. Whatever does not fit is cut off at a frame boundary.
+ * The snapshot is cleared once the regular crash path has stored its report; a snapshot still
+ * found on the next launch is moved aside and turned into the report that path would have
+ * produced. The moved file is only deleted once that report is in the store, so a launch that
+ * dies first leaves it for the next one.
+ */
+public final class eg {
+    private static final int f803a = 1129464645;
+    private static final int f804b = 1;
+    private static final int f805c = 262144;
+    private static final int f806d = 28;
+    private static final String f811i = "crash_snapshot_pending_";
+    private static final int f812j = 8;
+    private final ByteBuffer f807e;
+    private final RandomAccessFile f808f;
+    private final Thread[] f809g;
+    private List f810h;
+
+    /* renamed from: crittercism.android.eg.a */
+    static final class C1096a extends IOException {
+        C1096a() {
+            super("Crash snapshot is corrupt");
+        }
+    }
+
+    private eg(RandomAccessFile randomAccessFile) {
+        this.f807e = ByteBuffer.allocate(f805c);
+        this.f809g = new Thread[256];
+        this.f808f = randomAccessFile;
+    }
+
+    private static File m791b(Context context) {
+        return new File(context.getFilesDir().getAbsolutePath() + "//com.crittercism//crash_snapshot");
+    }
+
+    /**
+     * Opens the snapshot file for the rest of the process's life. A snapshot the previous process
+     * left behind is first moved aside and, with any moved earlier and not yet stored, kept for
+     * {@link #m796a}.
+     */
+    public static eg m790a(Context context) {
+        File b = m791b(context);
+        b.getParentFile().mkdirs();
+        if (b.length() >= ((long) f806d) && !b.renameTo(new File(b.getParentFile(), f811i + System.currentTimeMillis()))) {
+            dx.m757c("Unable to move " + b.getAbsolutePath());
+        }
+        List a = m793a(b.getParentFile());
+        try {
+            eg egVar = new eg(new RandomAccessFile(b, "rw"));
+            egVar.f810h = a;
+            return egVar;
+        } catch (IOException e) {
+            dx.m751a("Unable to open " + b.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    public static void m801b(Context context) {
+        File b = m791b(context);
+        b.delete();
+        for (File delete : m802c(b.getParentFile())) {
+            delete.delete();
+        }
+    }
+
+    private static File[] m802c(File file) {
+        File[] listFiles = file.listFiles();
+        if (listFiles == null) {
+            return new File[0];
+        }
+        List arrayList = new ArrayList();
+        for (File file2 : listFiles) {
+            if (file2.getName().startsWith(f811i)) {
+                arrayList.add(file2);
+            }
+        }
+        File[] fileArr = (File[]) arrayList.toArray(new File[arrayList.size()]);
+        Arrays.sort(fileArr);
+        return fileArr;
+    }
+
+    /**
+     * Stores the crashes left by earlier processes, once, with the breadcrumbs of the session that
+     * ended, the way the crash handler would have. Each snapshot file is deleted once its report
+     * has been stored.
+     */
+    public final void m796a(bs bsVar, bs bsVar2, bs bsVar3, bs bsVar4, bs bsVar5) {
+        List list;
+        synchronized (this) {
+            list = this.f810h;
+            this.f810h = null;
+        }
+        if (list != null) {
+            for (int i = 0; i < list.size(); i += 2) {
+                bk bkVar = (bk) list.get(i);
+                bkVar.m521a("crashed_session", bsVar);
+                if (bsVar2.m553b() > 0) {
+                    bkVar.m521a("previous_session", bsVar2);
+                }
+                bkVar.m519a(bsVar3);
+                bkVar.f478b = new bo(bsVar4).f507a;
+                if (bsVar5.m552a(bkVar)) {
+                    ((File) list.get(i + 1)).delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * Captures the crash of {@code thread}. Only this and {@link #m795b()} touch the buffer. When the
+     * buffer runs out of room the records written so far are kept and the rest are dropped.
+     */
+    public final synchronized boolean m794a(Thread thread, Throwable th) {
+        ByteBuffer byteBuffer = this.f807e;
+        byteBuffer.clear();
+        byteBuffer.position(f806d);
+        byteBuffer.putLong(12, System.currentTimeMillis());
+        byteBuffer.putLong(20, thread.getId());
+        try {
+            boolean z = th instanceof PluginException;
+            byteBuffer.put(z ? (byte) 1 : (byte) 0);
+            Throwable th2 = th;
+            while (th2.getCause() != null && th2.getCause() != th2) {
+                th2 = th2.getCause();
+            }
+            m797a(z ? ((PluginException) th).getExceptionName() : th2.getClass().getName());
+            m797a(th.getMessage());
+            int position = byteBuffer.position();
+            byteBuffer.putInt(0);
+            int i = 0;
+            Throwable th3 = th;
+            while (th3 != null && i < 16) {
+                int position3 = byteBuffer.position();
+                try {
+                    m797a(th3.getClass().getName());
+                    m797a(th3.getMessage());
+                    m798a(th3.getStackTrace());
+                } catch (RuntimeException e) {
+                    byteBuffer.position(position3);
+                    throw e;
+                }
+                i++;
+                byteBuffer.putInt(position, i);
+                Throwable cause = th3.getCause();
+                th3 = cause != th3 ? cause : null;
+            }
+            int position2 = byteBuffer.position();
+            byteBuffer.putInt(0);
+            ThreadGroup threadGroup = thread.getThreadGroup();
+            while (threadGroup != null && threadGroup.getParent() != null) {
+                threadGroup = threadGroup.getParent();
+            }
+            int enumerate = threadGroup != null ? threadGroup.enumerate(this.f809g, true) : 0;
+            int i2 = 0;
+            for (int i3 = 0; i3 < enumerate; i3++) {
+                Thread thread2 = this.f809g[i3];
+                this.f809g[i3] = null;
+                if (thread2 != null && thread2 != thread) {
+                    int position4 = byteBuffer.position();
+                    try {
+                        byteBuffer.putLong(thread2.getId());
+                        m797a(thread2.getName());
+                        m797a(thread2.getState().name());
+                        m798a(thread2.getStackTrace());
+                    } catch (RuntimeException e2) {
+                        byteBuffer.position(position4);
+                        throw e2;
+                    }
+                    i2++;
+                    byteBuffer.putInt(position2, i2);
+                }
+            }
+        } catch (RuntimeException e3) {
+        }
+        for (int i4 = 0; i4 < this.f809g.length; i4++) {
+            this.f809g[i4] = null;
+        }
+        byteBuffer.putInt(0, f803a);
+        byteBuffer.putInt(4, f804b);
+        byteBuffer.putInt(8, byteBuffer.position());
+        try {
+            this.f808f.seek(0);
+            this.f808f.write(byteBuffer.array(), 0, byteBuffer.position());
+            this.f808f.setLength((long) byteBuffer.position());
+            return true;
+        } catch (IOException e4) {
+            return false;
+        }
+    }
+
+    /**
+     * Drops the snapshot once the crash has been stored the regular way.
+     */
+    public final synchronized void m795b() {
+        try {
+            this.f808f.setLength(0);
+        } catch (IOException e) {
+        }
+    }
+
+    private void m797a(String str) {
+        ByteBuffer byteBuffer = this.f807e;
+        if (str == null) {
+            byteBuffer.putShort((short) -1);
+            return;
+        }
+        int min = Math.min(str.length(), 1024);
+        byteBuffer.putShort((short) min);
+        for (int i = 0; i < min; i++) {
+            byteBuffer.putChar(str.charAt(i));
+        }
+    }
+
+    /**
+     * Writes as many frames as fit; the count in front always matches what was written.
+     */
+    private void m798a(StackTraceElement[] stackTraceElementArr) {
+        ByteBuffer byteBuffer = this.f807e;
+        int position = byteBuffer.position();
+        byteBuffer.putInt(0);
+        int i = 0;
+        for (StackTraceElement stackTraceElement : stackTraceElementArr) {
+            int position2 = byteBuffer.position();
+            try {
+                m797a(stackTraceElement.getClassName());
+                m797a(stackTraceElement.getMethodName());
+                m797a(stackTraceElement.getFileName());
+                byteBuffer.putInt(stackTraceElement.getLineNumber());
+                i++;
+                byteBuffer.putInt(position, i);
+            } catch (RuntimeException e) {
+                byteBuffer.position(position2);
+                return;
+            }
+        }
+    }
+
+    private static String m799b(ByteBuffer byteBuffer) {
+        short s = byteBuffer.getShort();
+        if (s < 0) {
+            return null;
+        }
+        char[] cArr = new char[s];
+        for (int i = 0; i < s; i++) {
+            cArr[i] = byteBuffer.getChar();
+        }
+        return new String(cArr);
+    }
+
+    private static StackTraceElement[] m800c(ByteBuffer byteBuffer) {
+        int i = byteBuffer.getInt();
+        if (i < 0 || i > byteBuffer.remaining()) {
+            throw new IllegalStateException();
+        }
+        StackTraceElement[] stackTraceElementArr = new StackTraceElement[i];
+        for (int i2 = 0; i2 < i; i2++) {
+            String b = m799b(byteBuffer);
+            String b2 = m799b(byteBuffer);
+            String b3 = m799b(byteBuffer);
+            stackTraceElementArr[i2] = new StackTraceElement(b != null ? b : "?", b2 != null ? b2 : "?", b3, byteBuffer.getInt());
+        }
+        return stackTraceElementArr;
+    }
+
+    /**
+     * Reads the snapshots moved aside by earlier launches, oldest first, as report and file pairs.
+     * Unreadable ones, and any beyond the newest {@code f812j}, are deleted.
+     */
+    private static List m793a(File file) {
+        File[] c = m802c(file);
+        List arrayList = new ArrayList();
+        for (int i = 0; i < c.length; i++) {
+            File file2 = c[i];
+            bk a = i < c.length - f812j ? null : m803d(file2);
+            if (a == null) {
+                file2.delete();
+            } else {
+                arrayList.add(a);
+                arrayList.add(file2);
+            }
+        }
+        return arrayList;
+    }
+
+    private static bk m803d(File file) {
+        if (file.length() < ((long) f806d)) {
+            return null;
+        }
+        try {
+            byte[] bArr = new byte[((int) Math.min(file.length(), (long) f805c))];
+            RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+            try {
+                randomAccessFile.readFully(bArr);
+            } finally {
+                randomAccessFile.close();
+            }
+            return m792a(ByteBuffer.wrap(bArr));
+        } catch (IOException e) {
+            dx.m751a("Unable to read " + file.getAbsolutePath(), e);
+            return null;
+        } catch (RuntimeException e2) {
+            dx.m751a("Unable to read " + file.getAbsolutePath(), e2);
+            return null;
+        }
+    }
+
+    private static bk m792a(ByteBuffer byteBuffer) throws IOException {
+        if (byteBuffer.getInt(0) != f803a || byteBuffer.getInt(4) != f804b || byteBuffer.getInt(8) != byteBuffer.limit()) {
+            throw new C1096a();
+        }
+        long j = byteBuffer.getLong(12);
+        long j2 = byteBuffer.getLong(20);
+        byteBuffer.position(f806d);
+        boolean z = byteBuffer.get() != (byte) 0;
+        String b = m799b(byteBuffer);
+        String b2 = m799b(byteBuffer);
+        List arrayList = new ArrayList();
+        StackTraceElement[] stackTraceElementArr = null;
+        int i = byteBuffer.remaining() >= 4 ? byteBuffer.getInt() : 0;
+        for (int i2 = 0; i2 < i; i2++) {
+            String b3 = m799b(byteBuffer);
+            String b4 = m799b(byteBuffer);
+            StackTraceElement[] c = m800c(byteBuffer);
+            if (stackTraceElementArr == null) {
+                stackTraceElementArr = c;
+            }
+            StringBuilder stringBuilder = new StringBuilder();
+            if (i2 > 0) {
+                stringBuilder.append("Caused by: ");
+            }
+            stringBuilder.append(b3);
+            if (b4 != null) {
+                stringBuilder.append(": ").append(b4);
+            }
+            arrayList.add(stringBuilder.toString());
+            for (StackTraceElement stackTraceElement : c) {
+                arrayList.add("\tat " + stackTraceElement);
+            }
+        }
+        JSONArray jSONArray = new JSONArray();
+        int i3 = byteBuffer.remaining() >= 4 ? byteBuffer.getInt() : 0;
+        for (int i4 = 0; i4 < i3; i4++) {
+            try {
+                JSONObject jSONObject = new JSONObject();
+                jSONObject.put("id", byteBuffer.getLong());
+                jSONObject.put("name", m799b(byteBuffer));
+                jSONObject.put("state", m799b(byteBuffer));
+                StackTraceElement[] c2 = m800c(byteBuffer);
+                JSONArray jSONArray2 = new JSONArray();
+                for (StackTraceElement stackTraceElement2 : c2) {
+                    jSONArray2.put(stackTraceElement2.toString());
+                }
+                jSONObject.put("stacktrace", jSONArray2);
+                jSONArray.put(jSONObject);
+            } catch (JSONException e) {
+            }
+        }
+        return new bk(j, j2, z, b, b2, (String[]) arrayList.toArray(new String[arrayList.size()]), stackTraceElementArr != null ? stackTraceElementArr : new StackTraceElement[0], jSONArray);
+    }
+}
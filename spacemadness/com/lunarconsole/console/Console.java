@@ -1,5 +1,6 @@
 package spacemadness.com.lunarconsole.console;
 
+import java.util.List;
 import spacemadness.com.lunarconsole.console.ConsoleAdapter.DataSource;
 import spacemadness.com.lunarconsole.core.Destroyable;
 import spacemadness.com.lunarconsole.debug.Log;
@@ -15,6 +16,9 @@ public class Console implements Destroyable, DataSource {
         C13921() {
         }
 
+        public void onAddEntries(Console console, int count, boolean filtered) {
+        }
+
         public void onAddEntry(Console console, ConsoleEntry entry, boolean filtered) {
         }
 
@@ -92,6 +96,30 @@ public class Console implements Destroyable, DataSource {
         notifyEntryAdded(entry, filtered);
     }
 
+    /**
+     * Adds a batch of entries and notifies the listener once for the whole batch rather than once
+     * per entry.
+     */
+    void logMessages(List<ConsoleEntry> batch) {
+        int count = batch.size();
+        if (count == 0) {
+            return;
+        }
+        int oldTrimmedCount = this.entries.trimmedCount();
+        boolean filtered = false;
+        for (int i = 0; i < count; i++) {
+            ConsoleEntry entry = (ConsoleEntry) batch.get(i);
+            entry.index = this.entries.totalCount();
+            filtered |= this.entries.filterEntry(entry);
+            this.entries.addEntry(entry);
+        }
+        int trimmedCount = this.entries.trimmedCount() - oldTrimmedCount;
+        if (trimmedCount > 0) {
+            notifyRemoveEntries(0, trimmedCount);
+        }
+        notifyEntriesAdded(count, filtered);
+    }
+
     public void clear() {
         this.entries.clear();
         notifyEntriesCleared();
@@ -109,6 +137,14 @@ public class Console implements Destroyable, DataSource {
         }
     }
 
+    private void notifyEntriesAdded(int count, boolean filtered) {
+        try {
+            this.consoleListener.onAddEntries(this, count, filtered);
+        } catch (Throwable e) {
+            Log.m862e(e, "Error while notifying delegate", new Object[0]);
+        }
+    }
+
     private void notifyRemoveEntries(int start, int length) {
         try {
             this.consoleListener.onRemoveEntries(this, start, length);
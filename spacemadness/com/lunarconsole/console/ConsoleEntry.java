@@ -10,6 +10,7 @@ import spacemadness.com.lunarconsole.C1391R;
 public class ConsoleEntry {
     private static final int[] LOG_ENTRY_ICON_RES_LOOKUP;
     public int index;
+    private String lowerCaseMessage;
     public final String message;
     public final String stackTrace;
     public final byte type;
@@ -61,6 +62,16 @@ public class ConsoleEntry {
         return context.getResources().getColor(this.index % 2 == 0 ? C1391R.color.lunar_console_color_cell_background_dark : C1391R.color.lunar_console_color_cell_background_light);
     }
 
+    /**
+     * The message lower-cased once, on first use, for case-insensitive filtering.
+     */
+    String getLowerCaseMessage() {
+        if (this.lowerCaseMessage == null) {
+            this.lowerCaseMessage = this.message != null ? this.message.toLowerCase() : "";
+        }
+        return this.lowerCaseMessage;
+    }
+
     public boolean hasStackTrace() {
         return this.stackTrace != null && this.stackTrace.length() > 0;
     }
@@ -2,13 +2,32 @@ package spacemadness.com.lunarconsole.console;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import spacemadness.com.lunarconsole.debug.Log;
 import spacemadness.com.lunarconsole.utils.ThreadUtils;
 
+/**
+ * Hands entries logged on any thread to the UI thread.
+ *
+ * Producers only append to a lock-free queue and post a single dispatch while none is pending, so
+ * a logging thread never waits for the UI. The UI thread drains everything queued since the last
+ * dispatch into a buffer it owns and delivers it in one call. When the UI falls more than
+ * {@link #MAX_PENDING_ENTRIES} behind, new entries are dropped and counted, and the next dispatch
+ * reports how many were lost.
+ */
 class ConsoleEntryDispatcher {
+    static final int MAX_PENDING_ENTRIES = 8192;
+    private final List<ConsoleEntry> buffer;
+    private final AtomicBoolean dispatchPosted;
     private final Runnable dispatchRunnable;
-    private final List<ConsoleEntry> entries;
+    private final AtomicInteger droppedCount;
+    private final Queue<ConsoleEntry> entries;
     private final OnDispatchListener listener;
+    private final AtomicInteger pendingCount;
+    private int reportedDroppedCount;
 
     /* renamed from: spacemadness.com.lunarconsole.console.ConsoleEntryDispatcher.1 */
     class C13931 implements Runnable {
@@ -29,19 +48,33 @@ class ConsoleEntryDispatcher {
             throw new NullPointerException("Listener is null");
         }
         this.listener = listener;
-        this.entries = new ArrayList();
+        this.entries = new ConcurrentLinkedQueue();
+        this.buffer = new ArrayList();
+        this.pendingCount = new AtomicInteger();
+        this.droppedCount = new AtomicInteger();
+        this.dispatchPosted = new AtomicBoolean();
         this.dispatchRunnable = createDispatchRunnable();
     }
 
     public void add(ConsoleEntry entry) {
-        synchronized (this.entries) {
-            this.entries.add(entry);
-            if (this.entries.size() == 1) {
-                postEntriesDispatch();
-            }
+        if (this.pendingCount.incrementAndGet() > MAX_PENDING_ENTRIES) {
+            this.pendingCount.decrementAndGet();
+            this.droppedCount.incrementAndGet();
+        } else {
+            this.entries.offer(entry);
+        }
+        if (this.dispatchPosted.compareAndSet(false, true)) {
+            postEntriesDispatch();
         }
     }
 
+    /**
+     * Total number of entries dropped because the UI thread could not keep up.
+     */
+    public int getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
     protected void postEntriesDispatch() {
         ThreadUtils.runOnUIThread(this.dispatchRunnable);
     }
@@ -50,14 +83,33 @@ class ConsoleEntryDispatcher {
         ThreadUtils.cancel(this.dispatchRunnable);
     }
 
+    /**
+     * Drains the queue on the UI thread. The posted flag is cleared before draining, so anything
+     * added from then on posts the next dispatch.
+     */
     protected void dispatchEntries() {
-        synchronized (this.entries) {
+        this.dispatchPosted.set(false);
+        List<ConsoleEntry> batch = this.buffer;
+        while (true) {
+            ConsoleEntry entry = (ConsoleEntry) this.entries.poll();
+            if (entry == null) {
+                break;
+            }
+            batch.add(entry);
+        }
+        this.pendingCount.addAndGet(-batch.size());
+        int dropped = this.droppedCount.get();
+        if (dropped != this.reportedDroppedCount) {
+            batch.add(new ConsoleEntry(ConsoleLogType.WARNING, "Console dropped " + (dropped - this.reportedDroppedCount) + " message(s): logging faster than the console can display", null));
+            this.reportedDroppedCount = dropped;
+        }
+        if (batch.size() > 0) {
             try {
-                this.listener.onDispatchEntries(this.entries);
+                this.listener.onDispatchEntries(batch);
             } catch (Throwable e) {
                 Log.m862e(e, "Can't dispatch entries", new Object[0]);
             }
-            this.entries.clear();
+            batch.clear();
         }
     }
 
@@ -67,8 +119,11 @@ class ConsoleEntryDispatcher {
 
     public void cancelAll() {
         cancelEntriesDispatch();
-        synchronized (this.entries) {
-            this.entries.clear();
+        int removed = 0;
+        while (this.entries.poll() != null) {
+            removed++;
         }
+        this.pendingCount.addAndGet(-removed);
+        this.dispatchPosted.set(false);
     }
 }
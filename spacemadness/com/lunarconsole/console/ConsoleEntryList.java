@@ -1,14 +1,27 @@
 package spacemadness.com.lunarconsole.console;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import spacemadness.com.lunarconsole.utils.ObjectUtils;
 import spacemadness.com.lunarconsole.utils.StringUtils;
 
+/**
+ * All console entries plus the subset passing the current text and log type filters.
+ *
+ * Text is matched against each entry's cached lower-case message. Narrowing the filter (typing
+ * more, disabling a log type) only re-checks the entries that currently pass. Before the text is
+ * narrowed the current result is kept as a snapshot, so deleting characters again restores the
+ * earlier result and checks only the entries logged since, instead of scanning everything.
+ */
 public class ConsoleEntryList {
+    private static final int MAX_FILTER_SNAPSHOTS = 16;
     private LimitSizeEntryList currentEntries;
     private final LimitSizeEntryList entries;
     private int errorCount;
+    private final List<FilterSnapshot> filterSnapshots;
     private String filterText;
+    private String filterTextLowerCase;
     private LimitSizeEntryList filteredEntries;
     private int logCount;
     private int logDisabledTypesMask;
@@ -20,7 +33,22 @@ public class ConsoleEntryList {
         }
     }
 
+    private static class FilterSnapshot {
+        final LimitSizeEntryList filteredEntries;
+        final int logDisabledTypesMask;
+        final int nextEntryIndex;
+        final String text;
+
+        FilterSnapshot(String text, int logDisabledTypesMask, LimitSizeEntryList filteredEntries, int nextEntryIndex) {
+            this.text = text;
+            this.logDisabledTypesMask = logDisabledTypesMask;
+            this.filteredEntries = filteredEntries;
+            this.nextEntryIndex = nextEntryIndex;
+        }
+    }
+
     public ConsoleEntryList(int capacity, int trimSize) {
+        this.filterSnapshots = new ArrayList();
         this.entries = new LimitSizeEntryList(capacity, trimSize);
         this.currentEntries = this.entries;
         this.logDisabledTypesMask = 0;
@@ -62,6 +90,7 @@ public class ConsoleEntryList {
         if (this.filteredEntries != null) {
             this.filteredEntries.clear();
         }
+        this.filterSnapshots.clear();
         this.logCount = 0;
         this.warningCount = 0;
         this.errorCount = 0;
@@ -73,8 +102,12 @@ public class ConsoleEntryList {
         }
         String oldFilterText = this.filterText;
         this.filterText = text;
+        this.filterTextLowerCase = text != null ? text.toLowerCase() : null;
         if (StringUtils.length(text) <= StringUtils.length(oldFilterText) || (StringUtils.length(oldFilterText) != 0 && !StringUtils.hasPrefix(text, oldFilterText))) {
-            return applyFilter();
+            return restoreFilter(text) || applyFilter();
+        }
+        if (isFiltering()) {
+            pushFilterSnapshot(oldFilterText);
         }
         return appendFilter();
     }
@@ -91,6 +124,7 @@ public class ConsoleEntryList {
             this.logDisabledTypesMask &= logTypeMask ^ -1;
         }
         if (oldDisabledTypesMask != this.logDisabledTypesMask) {
+            this.filterSnapshots.clear();
             return disabled ? appendFilter() : applyFilter();
         } else {
             return false;
@@ -124,9 +158,50 @@ public class ConsoleEntryList {
         }
         this.currentEntries = this.entries;
         this.filteredEntries = null;
+        this.filterSnapshots.clear();
         return true;
     }
 
+    private void pushFilterSnapshot(String text) {
+        if (this.filterSnapshots.size() == MAX_FILTER_SNAPSHOTS) {
+            this.filterSnapshots.remove(0);
+        }
+        this.filterSnapshots.add(new FilterSnapshot(text, this.logDisabledTypesMask, this.filteredEntries, this.entries.totalCount()));
+    }
+
+    /**
+     * Brings back the result kept for {@code text}, if any, and adds the matching entries logged
+     * since it was taken. Snapshots for filters that are not a prefix of {@code text} are dropped.
+     */
+    private boolean restoreFilter(String text) {
+        while (!this.filterSnapshots.isEmpty()) {
+            FilterSnapshot snapshot = (FilterSnapshot) this.filterSnapshots.remove(this.filterSnapshots.size() - 1);
+            if (isPrefix(snapshot.text, text)) {
+                if (StringUtils.length(snapshot.text) != StringUtils.length(text) || snapshot.logDisabledTypesMask != this.logDisabledTypesMask) {
+                    this.filterSnapshots.add(snapshot);
+                    return false;
+                }
+                LimitSizeEntryList filteredEntries = snapshot.filteredEntries;
+                int headIndex = this.entries.overflowCount();
+                int totalCount = this.entries.totalCount();
+                for (int index = Math.max(snapshot.nextEntryIndex, headIndex); index < totalCount; index++) {
+                    ConsoleEntry entry = (ConsoleEntry) this.entries.objectAtIndex(index - headIndex);
+                    if (isFiltered(entry)) {
+                        filteredEntries.addObject(entry);
+                    }
+                }
+                this.currentEntries = filteredEntries;
+                this.filteredEntries = filteredEntries;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isPrefix(String prefix, String text) {
+        return StringUtils.length(prefix) == 0 || StringUtils.hasPrefix(text, prefix);
+    }
+
     private void useFilteredFromEntries(LimitSizeEntryList entries) {
         LimitSizeEntryList filteredEntries = filterEntries(entries);
         this.currentEntries = filteredEntries;
@@ -149,7 +224,7 @@ public class ConsoleEntryList {
         if ((this.logDisabledTypesMask & ConsoleLogType.getMask(entry.type)) != 0) {
             return false;
         }
-        if (StringUtils.length(this.filterText) == 0 || StringUtils.containsIgnoreCase(entry.message, this.filterText)) {
+        if (StringUtils.length(this.filterText) == 0 || entry.getLowerCaseMessage().indexOf(this.filterTextLowerCase) >= 0) {
             return true;
         }
         return false;
@@ -160,10 +235,15 @@ public class ConsoleEntryList {
     }
 
     public String getText() {
-        StringBuilder text = new StringBuilder();
-        int index = 0;
         int count = this.currentEntries.count();
+        int length = count;
         Iterator i$ = this.currentEntries.iterator();
+        while (i$.hasNext()) {
+            length += StringUtils.length(((ConsoleEntry) i$.next()).message);
+        }
+        StringBuilder text = new StringBuilder(length);
+        int index = 0;
+        i$ = this.currentEntries.iterator();
         while (i$.hasNext()) {
             text.append(((ConsoleEntry) i$.next()).message);
             index++;
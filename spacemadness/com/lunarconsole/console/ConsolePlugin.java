@@ -282,11 +282,14 @@ public class ConsolePlugin implements Destroyable, Listener, WarningView.Listene
     }
 
     private void logEntries(List<ConsoleEntry> entries) {
-        for (int i = 0; i < entries.size(); i++) {
-            ConsoleEntry entry = (ConsoleEntry) entries.get(i);
-            this.console.logMessage(entry);
-            if (ConsoleLogType.isErrorType(entry.type) && !isConsoleShown()) {
-                showWarning(entry.message);
+        this.console.logMessages(entries);
+        if (!isConsoleShown()) {
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                ConsoleEntry entry = (ConsoleEntry) entries.get(i);
+                if (ConsoleLogType.isErrorType(entry.type)) {
+                    showWarning(entry.message);
+                    return;
+                }
             }
         }
     }
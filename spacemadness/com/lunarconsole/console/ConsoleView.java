@@ -418,6 +418,14 @@ public class ConsoleView extends LinearLayout implements Destroyable, LunarConso
         this.errorButton.setCount(entries.getErrorCount());
     }
 
+    public void onAddEntries(Console console, int count, boolean filtered) {
+        if (filtered) {
+            this.recyclerViewAdapter.notifyDataSetChanged();
+            scrollToBottom(console);
+        }
+        updateLogButtons();
+    }
+
     public void onAddEntry(Console console, ConsoleEntry entry, boolean filtered) {
         if (filtered) {
             this.recyclerViewAdapter.notifyDataSetChanged();
@@ -1,6 +1,8 @@
 package spacemadness.com.lunarconsole.console;
 
 public interface LunarConsoleListener {
+    void onAddEntries(Console console, int count, boolean filtered);
+
     void onAddEntry(Console console, ConsoleEntry consoleEntry, boolean z);
 
     void onClearEntries(Console console);